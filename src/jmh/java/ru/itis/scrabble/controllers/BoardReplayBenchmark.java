@@ -0,0 +1,123 @@
+package ru.itis.scrabble.controllers;
+
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.GridPane;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.itis.scrabble.dto.MoveDTO;
+import ru.itis.scrabble.dto.TilePlacementDTO;
+import ru.itis.scrabble.models.Board;
+import ru.itis.scrabble.services.MidGame;
+import ru.itis.scrabble.services.MoveGeneratorImpl;
+import ru.itis.scrabble.util.DictUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время кадра при воспроизведении целой партии в потоке JavaFX.
+ * <p>
+ * Партия разыгрывается генератором ходов ({@link MidGame}); каждый ход дает два кадра,
+ * как на экране игры: фишки хода с подсветкой, затем они же выложенными. После последнего
+ * хода идет кадр очистки поля, и партия повторяется. Операция — один кадр: изменения
+ * клеток через {@link BoardRenderer} и отрисовка сцены ({@code Scene.snapshot}: CSS, разметка,
+ * растеризация) в потоке JavaFX.
+ * </p>
+ * <p>
+ * По умолчанию JavaFX работает без экрана (Monocle Headless, программный конвейер prism),
+ * чтобы бенчмарк запускался и на сервере сборки; абсолютные значения поэтому выше,
+ * чем на видеокарте, а сравнивать стоит способы отрисовки между собой.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dglass.platform=Monocle", "-Dmonocle.platform=Headless", "-Dprism.order=sw"})
+public class BoardReplayBenchmark {
+    @Param({"nodes", "canvas"})
+    public String renderer;
+
+    // Кадр: клетки и фишки, которые он меняет; pending — фишки текущего, еще не подтвержденного хода
+    private record Frame(List<TilePlacementDTO> cells, boolean pending) {
+    }
+
+    private final List<Frame> frames = new ArrayList<>();
+    private BoardRenderer board;
+    private Scene scene;
+    private WritableImage image;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        List<MoveDTO> moves = MidGame.play(new MoveGeneratorImpl(DictUtil.getGaddag()), 40, 2024).played();
+        List<TilePlacementDTO> all = new ArrayList<>();
+        for (MoveDTO move : moves) {
+            frames.add(new Frame(move.placements(), true));
+            frames.add(new Frame(move.placements(), false));
+            all.addAll(move.placements());
+        }
+        List<TilePlacementDTO> clear = new ArrayList<>();
+        for (TilePlacementDTO placement : all) {
+            clear.add(new TilePlacementDTO(null, placement.x(), placement.y()));
+        }
+        frames.add(new Frame(clear, false));
+        System.out.println("\nПартия: " + moves.size() + " ходов, " + all.size() + " фишек, " + frames.size() + " кадров");
+
+        CountDownLatch started = new CountDownLatch(1);
+        Platform.startup(started::countDown);
+        started.await();
+        onFxThread(() -> {
+            board = "canvas".equals(renderer) ? new CanvasBoardRenderer() : new NodeBoardRenderer();
+            GridPane grid = new GridPane();
+            board.attach(grid);
+            scene = new Scene(grid);
+            image = scene.snapshot(null);
+            return null;
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        Platform.exit();
+    }
+
+    @Benchmark
+    public WritableImage frame() throws Exception {
+        Frame frame = frames.get(next);
+        next = (next + 1) % frames.size();
+        return onFxThread(() -> {
+            for (TilePlacementDTO cell : frame.cells()) {
+                if (frame.pending()) {
+                    board.renderPending(cell.x(), cell.y(), cell.tile());
+                } else {
+                    board.renderPlaced(cell.x(), cell.y(), cell.tile());
+                }
+            }
+            return scene.snapshot(image);
+        });
+    }
+
+    private static <T> T onFxThread(Callable<T> task) throws Exception {
+        FutureTask<T> future = new FutureTask<>(task);
+        Platform.runLater(future);
+        return future.get();
+    }
+}
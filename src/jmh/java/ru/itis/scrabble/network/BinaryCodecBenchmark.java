@@ -0,0 +1,111 @@
+package ru.itis.scrabble.network;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.itis.scrabble.dto.MessageEnvelopeDTO;
+import ru.itis.scrabble.dto.NetworkMessageDTO;
+import ru.itis.scrabble.dto.PlacementsDTO;
+import ru.itis.scrabble.dto.TextDTO;
+import ru.itis.scrabble.dto.TilePlacementDTO;
+import ru.itis.scrabble.models.Tile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кодирование и разбор частых сообщений: {@link BinaryCodec} против JSON конверта v2.
+ * <p>
+ * JSON кодируется через {@link ProtocolUtils#encode(MessageEnvelopeDTO, ObjectMapper)}; разбирается
+ * так же, как получатель: фишки хода — связыванием payload через {@link PayloadRegistry},
+ * события — деревом JSON в {@link NetworkMessageDTO}, как в NetworkClient. Размер кадров
+ * в байтах печатается при подготовке, выделения на сообщение показывает {@code -prof gc}.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryCodecBenchmark {
+    /**
+     * TURN_COMMIT — ход из семи фишек, HEARTBEAT — пустая команда, MOVE_REJECTED — событие с текстом.
+     */
+    @Param({"TURN_COMMIT", "HEARTBEAT", "MOVE_REJECTED"})
+    public String message;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private MessageEnvelopeDTO envelope;
+    private byte[] jsonBody;
+    private byte[] binaryBody;
+
+    @Setup
+    public void setUp() throws IOException {
+        envelope = switch (message) {
+            case "TURN_COMMIT" -> {
+                List<TilePlacementDTO> placements = new ArrayList<>();
+                for (int i = 0; i < 7; i++) {
+                    placements.add(new TilePlacementDTO(Tile.values()[i], 4 + i, 7));
+                }
+                yield MessageEnvelopeDTO.of(MessageType.TURN_COMMIT, null, new PlacementsDTO(placements), null);
+            }
+            case "HEARTBEAT" -> MessageEnvelopeDTO.of(MessageType.HEARTBEAT, null, null, null);
+            case "MOVE_REJECTED" -> MessageEnvelopeDTO.fromServer(MessageType.GAME_EVENT, "MOVE_REJECTED", new TextDTO("Move invalid"));
+            default -> throw new IllegalArgumentException(message);
+        };
+        jsonBody = body(ProtocolUtils.encode(envelope, mapper));
+        binaryBody = body(BinaryCodec.encode(envelope));
+        System.out.printf("%n%s: JSON %d B, двоичный %d B (с 4 байтами длины)%n",
+                message, jsonBody.length + 4, binaryBody.length + 4);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeJson() throws IOException {
+        return ProtocolUtils.encode(envelope, mapper);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeBinary() {
+        return BinaryCodec.encode(envelope);
+    }
+
+    @Benchmark
+    public Object decodeJson() throws IOException {
+        JsonNode root = mapper.readTree(jsonBody);
+        MessageType type = MessageType.valueOf(root.path("type").asText());
+        if (envelope.payload() instanceof PlacementsDTO) {
+            return PayloadRegistry.bind(type, root.get("payload"));
+        }
+        String event = root.hasNonNull("event") ? root.get("event").asText() : null;
+        String senderId = root.hasNonNull("senderId") ? root.get("senderId").asText() : null;
+        return new NetworkMessageDTO(type, null, senderId, event, root.get("payload"));
+    }
+
+    @Benchmark
+    public Object decodeBinary() throws IOException {
+        if (envelope.payload() instanceof PlacementsDTO) {
+            return BinaryCodec.readPlacements(binaryBody, 0, binaryBody.length);
+        }
+        return BinaryCodec.readEvent(binaryBody, 0, binaryBody.length);
+    }
+
+    private static byte[] body(ByteBuffer frame) {
+        byte[] body = new byte[frame.remaining() - 4];
+        frame.position(frame.position() + 4).get(body);
+        return body;
+    }
+}
@@ -0,0 +1,151 @@
+package ru.itis.scrabble.network;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.itis.scrabble.dto.NetworkMessageDTO;
+import ru.itis.scrabble.dto.TilePlacementDTO;
+import ru.itis.scrabble.models.BotDifficulty;
+import ru.itis.scrabble.models.Player;
+import ru.itis.scrabble.models.Tile;
+import ru.itis.scrabble.services.GameSessionService;
+import ru.itis.scrabble.services.RoomActor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выделения памяти на входящий пакет: разбор тела кадра в {@link PacketHandler#handle}
+ * вплоть до вызова сервиса. Сервис — заглушка, так что {@code -prof gc}
+ * ({@code gc.alloc.rate.norm}) показывает байты, которые тратит сам сетевой слой.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InboundPacketBenchmark {
+    private static final String PLACEMENTS =
+            "[{\"tile\":\"C\",\"x\":7,\"y\":7},{\"tile\":\"A\",\"x\":8,\"y\":7},{\"tile\":\"T\",\"x\":9,\"y\":7}]";
+
+    @Param({"V1_TURN_COMMIT", "V1_TILE_PREVIEW", "V1_HEARTBEAT", "V2_TURN_COMMIT", "BINARY_TURN_COMMIT"})
+    public String frame;
+
+    private PacketHandler handler;
+    private ClientSession session;
+    private SelectorLoop loop;
+    private SocketChannel channel;
+    private byte[] body;
+
+    // Куда заглушка складывает результат, чтобы JIT не выбросил разбор
+    private int sink;
+
+    @Setup
+    public void setUp() throws IOException {
+        handler = new PacketHandler(new NoopService());
+        loop = new SelectorLoop(null, new BufferPool());
+        channel = SocketChannel.open();
+        session = new ClientSession(channel, loop);
+        body = body(frame);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        channel.close();
+    }
+
+    @Benchmark
+    public int handle() {
+        handler.handle(session, body, 0, body.length);
+        return sink;
+    }
+
+    private static byte[] body(String frame) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        return switch (frame) {
+            case "V1_TURN_COMMIT" -> mapper.writeValueAsBytes(
+                    new NetworkMessageDTO(MessageType.TURN_COMMIT, PLACEMENTS, null));
+            case "V1_TILE_PREVIEW" -> mapper.writeValueAsBytes(new NetworkMessageDTO(MessageType.TILE_PREVIEW,
+                    "{\"placements\":" + PLACEMENTS + ",\"roomPort\":5,\"playerId\":1}", null));
+            case "V1_HEARTBEAT" -> mapper.writeValueAsBytes(
+                    new NetworkMessageDTO(MessageType.HEARTBEAT, "{}", null));
+            case "V2_TURN_COMMIT" -> ("{\"v\":2,\"type\":\"TURN_COMMIT\",\"payload\":{\"placements\":"
+                    + PLACEMENTS + "}}").getBytes(StandardCharsets.UTF_8);
+            case "BINARY_TURN_COMMIT" -> {
+                ByteBuffer encoded = BinaryCodec.encodePlacements(MessageType.TURN_COMMIT, List.of(
+                        new TilePlacementDTO(Tile.valueOf("C"), 7, 7),
+                        new TilePlacementDTO(Tile.valueOf("A"), 8, 7),
+                        new TilePlacementDTO(Tile.valueOf("T"), 9, 7)));
+                // Пропускаем 4 байта длины: handle получает уже тело кадра
+                byte[] bytes = new byte[encoded.remaining() - 4];
+                encoded.position(4).get(bytes);
+                yield bytes;
+            }
+            default -> throw new IllegalArgumentException(frame);
+        };
+    }
+
+    /**
+     * Сервис, который только отмечает вызов.
+     */
+    private class NoopService implements GameSessionService {
+        @Override
+        public void startNewGame(int roomId, List<Player> players, List<ClientSession> sessions) {}
+
+        @Override
+        public void startNewGameWithBots(int roomId, List<Player> players, List<ClientSession> sessions,
+                                         int botCount, BotDifficulty difficulty) {}
+
+        @Override
+        public boolean makeMove(int roomId, Long userId, List<TilePlacementDTO> placements) {
+            return false;
+        }
+
+        @Override
+        public void authenticate(ClientSession session, String username, String password) {}
+
+        @Override
+        public void commitTurn(ClientSession session, List<TilePlacementDTO> placements) {
+            sink += placements.size();
+        }
+
+        @Override
+        public void processPreview(ClientSession session, List<TilePlacementDTO> placements) {
+            sink += placements.size();
+        }
+
+        @Override
+        public void handleHeartbeat(ClientSession session) {
+            sink++;
+        }
+
+        @Override
+        public void sendFullState(ClientSession session) {}
+
+        @Override
+        public List<RoomActor.Metrics> getRoomMetrics() {
+            return List.of();
+        }
+
+        @Override
+        public PreviewMetrics getPreviewMetrics() {
+            return null;
+        }
+    }
+}
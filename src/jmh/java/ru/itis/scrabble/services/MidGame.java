@@ -0,0 +1,80 @@
+package ru.itis.scrabble.services;
+
+import ru.itis.scrabble.dto.MoveDTO;
+import ru.itis.scrabble.dto.TilePlacementDTO;
+import ru.itis.scrabble.models.Board;
+import ru.itis.scrabble.models.Tile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Воспроизводимая позиция середины партии для бенчмарков и тестов: мешок
+ * с английским распределением букв перемешивается с фиксированным seed,
+ * и генератор несколько ходов подряд выкладывает лучший по очкам ход.
+ */
+public final class MidGame {
+    // Английский набор без пустых фишек (их нет в Tile)
+    private static final String DISTRIBUTION = "AAAAAAAAABBCCDDDDEEEEEEEEEEEEFFGGGHHIIIIIIIIIJKLLLLMMNNNNNNOOOOOOOOPPQRRRRRRSSSSTTTTTTUUUUVVWWXYYZ";
+
+    private final Board board;
+    private final List<Tile> rack;
+    private final List<MoveDTO> played;
+
+    private MidGame(Board board, List<Tile> rack, List<MoveDTO> played) {
+        this.board = board;
+        this.rack = rack;
+        this.played = played;
+    }
+
+    /**
+     * Разыгрывает {@code turns} ходов; стойка результата — следующие семь фишек мешка
+     * после пополнения, как у игрока, которому предстоит ходить.
+     */
+    public static MidGame play(MoveGenerator generator, int turns, long seed) {
+        List<Tile> bag = new ArrayList<>();
+        for (char c : DISTRIBUTION.toCharArray()) {
+            bag.add(Tile.valueOf(String.valueOf(c)));
+        }
+        Collections.shuffle(bag, new Random(seed));
+
+        Board board = new Board();
+        List<Tile> rack = new ArrayList<>();
+        List<MoveDTO> played = new ArrayList<>();
+        for (int turn = 0; turn <= turns; turn++) {
+            while (rack.size() < ScoringService.RACK_SIZE && !bag.isEmpty()) {
+                rack.add(bag.removeLast());
+            }
+            if (turn == turns) break;
+
+            MoveDTO best = generator.generateMoves(board, rack).stream()
+                    .max(Comparator.comparingInt(MoveDTO::score))
+                    .orElse(null);
+            if (best == null) continue;
+            for (TilePlacementDTO placement : best.placements()) {
+                board.setCell(placement.x(), placement.y(), placement.tile());
+                rack.remove(placement.tile());
+            }
+            played.add(best);
+        }
+        return new MidGame(board, List.copyOf(rack), List.copyOf(played));
+    }
+
+    public Board board() {
+        return board;
+    }
+
+    public List<Tile> rack() {
+        return rack;
+    }
+
+    /**
+     * Сыгранные ходы по порядку.
+     */
+    public List<MoveDTO> played() {
+        return played;
+    }
+}
@@ -0,0 +1,50 @@
+package ru.itis.scrabble.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.itis.scrabble.dto.MoveDTO;
+import ru.itis.scrabble.util.DictUtil;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время полного перебора ходов для стойки из семи фишек на фиксированном поле
+ * середины партии ({@link MidGame}). Цель — меньше миллисекунды на вызов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class MoveGeneratorBenchmark {
+    // Число сыгранных ходов до измеряемой позиции
+    @Param({"8"})
+    public int turns;
+
+    private MoveGenerator generator;
+    private MidGame game;
+
+    @Setup
+    public void setUp() {
+        generator = new MoveGeneratorImpl(DictUtil.getGaddag());
+        game = MidGame.play(generator, turns, 2024);
+        System.out.println("\nПоле: " + game.board().getPlacedCount() + " фишек, стойка " + game.rack()
+                + ", ходов: " + generator.generateMoves(game.board(), game.rack()).size());
+    }
+
+    @Benchmark
+    public List<MoveDTO> generateAllMoves() {
+        return generator.generateMoves(game.board(), game.rack());
+    }
+}
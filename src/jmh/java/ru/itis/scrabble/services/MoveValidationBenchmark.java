@@ -0,0 +1,78 @@
+package ru.itis.scrabble.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.itis.scrabble.dto.MoveDTO;
+import ru.itis.scrabble.dto.TilePlacementDTO;
+import ru.itis.scrabble.models.Board;
+import ru.itis.scrabble.util.DictUtil;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проверка хода на сервере, как в {@code GameSessionServiceImpl.makeMove}: геометрия,
+ * слова по словарю и подсчет очков. Ходы — все допустимые ходы стойки на поле середины
+ * партии ({@link MidGame}), по кругу. {@code validate} идет через {@link PlacementScan}
+ * и не должен выделять память ({@code -prof gc}: {@code gc.alloc.rate.norm} около 0 B/op);
+ * {@code validateWithWordLists} — прежний путь через списки слов, для сравнения.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class MoveValidationBenchmark {
+    private final BoardService boardService = new BoardServiceImpl();
+    private final ScoringService scoringService = new ScoringServiceImpl();
+    private WordService wordService;
+
+    private Board board;
+    private List<TilePlacementDTO>[] moves;
+    private int next;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        wordService = new WordServiceImpl(DictUtil.getDictionary());
+        MoveGenerator generator = new MoveGeneratorImpl(DictUtil.getGaddag());
+        MidGame game = MidGame.play(generator, 8, 2024);
+        board = game.board();
+        moves = generator.generateMoves(board, game.rack()).stream()
+                .map(MoveDTO::placements)
+                .toArray(List[]::new);
+        System.out.println("\nПоле: " + board.getPlacedCount() + " фишек, ходов для проверки: " + moves.length);
+    }
+
+    @Benchmark
+    public int validate() {
+        List<TilePlacementDTO> placements = nextMove();
+        try (PlacementScan scan = boardService.scan(placements, board, board.isEmpty())) {
+            if (!scan.isValid() || !wordService.checkWords(scan)) return -1;
+            return scoringService.countScore(scan);
+        }
+    }
+
+    @Benchmark
+    public int validateWithWordLists() {
+        List<TilePlacementDTO> placements = nextMove();
+        if (!boardService.checkGeometry(placements, board, board.isEmpty())) return -1;
+        List<List<TilePlacementDTO>> words = boardService.findAllWords(placements, board);
+        if (!wordService.checkWords(words)) return -1;
+        return scoringService.countScore(placements, words, board);
+    }
+
+    private List<TilePlacementDTO> nextMove() {
+        if (++next == moves.length) next = 0;
+        return moves[next];
+    }
+}
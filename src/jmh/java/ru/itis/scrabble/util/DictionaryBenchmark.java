@@ -0,0 +1,90 @@
+package ru.itis.scrabble.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность проверки слов: {@link DawgDictionary} против прежнего
+ * {@code HashSet<String>} из DictUtil (с {@code toUpperCase()} на каждую проверку).
+ * Занимаемую память сравнивает {@code DawgDictionaryTest}; выделения на проверку
+ * показывает {@code -prof gc}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DictionaryBenchmark {
+    // Половина проверок — слова словаря, половина — слова с измененной буквой
+    private static final int PROBES = 4096;
+
+    private Set<String> hashSet;
+    private DawgDictionary dawg;
+    private String[] words;
+    private char[][] chars;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<String> all = new ArrayList<>();
+        hashSet = new HashSet<>();
+        try (InputStream is = DictionaryBenchmark.class.getResourceAsStream("/wordlist-20210729.txt")) {
+            dawg = DawgDictionary.fromWordList(is);
+        }
+        dawg.forEachWord(word -> {
+            all.add(word);
+            hashSet.add(word);
+        });
+
+        Random random = new Random(42);
+        words = new String[PROBES];
+        chars = new char[PROBES][];
+        for (int i = 0; i < PROBES; i++) {
+            char[] word = all.get(random.nextInt(all.size())).toLowerCase().toCharArray();
+            if (i % 2 == 1) {
+                word[random.nextInt(word.length)] = (char) ('a' + random.nextInt(26));
+            }
+            words[i] = new String(word);
+            chars[i] = word;
+        }
+    }
+
+    @Benchmark
+    public boolean hashSetContains() {
+        return hashSet.contains(words[next()].toUpperCase());
+    }
+
+    @Benchmark
+    public boolean dawgContainsChars() {
+        char[] word = chars[next()];
+        return dawg.contains(word, 0, word.length);
+    }
+
+    @Benchmark
+    public boolean dawgContainsString() {
+        return dawg.contains(words[next()]);
+    }
+
+    private int next() {
+        next = (next + 1) & (PROBES - 1);
+        return next;
+    }
+}
@@ -6,6 +6,7 @@ import ru.itis.scrabble.navigation.NavigationManager;
 import ru.itis.scrabble.network.NetworkClient;
 import ru.itis.scrabble.navigation.View;
 import ru.itis.scrabble.network.ServerMessageHandler;
+import ru.itis.scrabble.network.UiMessageDispatcher;
 
 public class ClientLauncher extends Application {
 
@@ -25,13 +26,14 @@ public class ClientLauncher extends Application {
             // 2. Инициализируем сетевой клиент
             String serverHost = "localhost"; // Можно вынести в конфиг или аргументы командной строки
             int serverPort = 8080;
-            ServerMessageHandler messageHandler = new ServerMessageHandler();
-
             networkClient = new NetworkClient();
-            networkClient.setMessageHandler(messageHandler::handleMessage);
-
             navigationManager = new NavigationManager(networkClient, primaryStage);
 
+            // Сообщения сервера попадают в поток JavaFX пачками, одним переходом на кадр,
+            // и разбираются тем же обработчиком, в котором навигатор регистрирует контроллеры
+            ServerMessageHandler messageHandler = navigationManager.getMessageHandler();
+            networkClient.setMessageHandler(new UiMessageDispatcher(messageHandler::handleMessage));
+
             // 4. Подключаемся к серверу (асинхронно, чтобы не блокировать UI)
             connectToServerAsync(serverHost, serverPort);
 
@@ -1,10 +1,14 @@
 package ru.itis.scrabble;
 
+import ru.itis.scrabble.models.BotDifficulty;
+import ru.itis.scrabble.network.BufferPool;
 import ru.itis.scrabble.network.NetworkServer;
+import ru.itis.scrabble.network.PacketDispatcher;
 import ru.itis.scrabble.network.PacketHandler;
 import ru.itis.scrabble.repositories.*;
 import ru.itis.scrabble.services.*;
 
+import java.util.List;
 import java.util.Scanner;
 
 import jakarta.persistence.EntityManager;
@@ -33,21 +37,27 @@ public class ServerLauncher {
         ScoringService scoringService = new ScoringServiceImpl();
         UserService userService = new UserServiceImpl(userRepository);
 
+        // Боты считают ходы на отдельном пуле, чтобы не отнимать процессор у комнат с людьми
+        int botThreads = Integer.getInteger("scrabble.botThreads", Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        BotService botService = new BotServiceImpl(new MoveGeneratorImpl(), botThreads, 64);
+
         // 2. Инициализация ключевого гейм-сервиса
         GameSessionService gameSessionService = new GameSessionServiceImpl(
                 boardService,
                 wordService,
                 scoringService,
                 bagService,
-                userService
+                userService,
+                botService
         );
 
         // 3. Создание диспетчера пакетов
         PacketHandler packetHandler = new PacketHandler(gameSessionService);
 
-        // 4. Запуск сетевого сервера на порту 8080
+        // 4. Запуск сетевого сервера на порту 8080 (по одному циклу селектора на ядро по умолчанию)
         int port = 8080;
-        server = new NetworkServer(port);
+        int selectorThreads = Integer.getInteger("scrabble.selectorThreads", Runtime.getRuntime().availableProcessors());
+        server = new NetworkServer(port, selectorThreads);
 
         // Передаем обработчик в сервер (нужно добавить сеттер в NetworkServer)
         server.setPacketHandler(packetHandler);
@@ -58,7 +68,9 @@ public class ServerLauncher {
 
         System.out.println("=== SCRABBLE SERVER STARTED ===");
         System.out.println("Listening on port: " + port);
-        System.out.println("Type 'exit' to stop the server.");
+        System.out.println("Type 'exit' to stop the server, 'rooms' to print room metrics, 'buffers' for buffer pool stats,");
+        System.out.println("'lanes' for packet worker lane metrics, 'previews' for tile preview counters,");
+        System.out.println("'bots <roomId> <count> [EASY|MEDIUM|HARD]' to start a bot-only game.");
 
         // Консоль управления сервером
         Scanner scanner = new Scanner(System.in);
@@ -66,8 +78,59 @@ public class ServerLauncher {
             String command = scanner.nextLine();
             if ("exit".equalsIgnoreCase(command)) {
                 server.stop();
+                botService.shutdown();
                 break;
             }
+            if (command.startsWith("bots ")) {
+                // Игра одних ботов: нагрузочная проверка без настоящих клиентов
+                String[] parts = command.trim().split("\\s+");
+                int roomId;
+                int count;
+                BotDifficulty difficulty;
+                try {
+                    roomId = Integer.parseInt(parts[1]);
+                    count = Integer.parseInt(parts[2]);
+                    difficulty = parts.length > 3 ? BotDifficulty.valueOf(parts[3].toUpperCase()) : BotDifficulty.MEDIUM;
+                } catch (RuntimeException e) {
+                    System.out.println("Usage: bots <roomId> <count> [EASY|MEDIUM|HARD]");
+                    continue;
+                }
+                if (count < 1) {
+                    System.out.println("Bot count must be at least 1");
+                    continue;
+                }
+                try {
+                    gameSessionService.startNewGameWithBots(roomId, List.of(), List.of(), count, difficulty);
+                    System.out.println("Bot game started in room " + roomId);
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    System.out.println("Bot game not started: " + e.getMessage());
+                }
+            }
+            if ("buffers".equalsIgnoreCase(command)) {
+                BufferPool.Stats stats = server.getBufferPoolStats();
+                System.out.printf("buffers: acquired=%d, allocated=%d, released=%d, dropped=%d, pooled=%d KB, direct=%d KB, leaks=%d%n",
+                        stats.acquired(), stats.allocated(), stats.released(), stats.dropped(),
+                        stats.pooledBytes() / 1024, stats.directBytes() / 1024, stats.leaks());
+            }
+            if ("lanes".equalsIgnoreCase(command)) {
+                for (PacketDispatcher.Metrics m : server.getDispatcherMetrics()) {
+                    System.out.printf("lane %d: queue=%d, processed=%d, throttled=%d, read-to-handle avg=%dus p99<=%dus max=%dus%n",
+                            m.lane(), m.queueDepth(), m.processed(), m.throttled(),
+                            m.avgLatencyMicros(), m.p99LatencyMicros(), m.maxLatencyMicros());
+                }
+            }
+            if ("previews".equalsIgnoreCase(command)) {
+                GameSessionService.PreviewMetrics m = gameSessionService.getPreviewMetrics();
+                System.out.printf("previews: received=%d, processed=%d, dropped=%d, deferred=%d, cache hits=%d, misses=%d%n",
+                        m.received(), m.processed(), m.dropped(), m.deferred(), m.cacheHits(), m.cacheMisses());
+            }
+            if ("rooms".equalsIgnoreCase(command)) {
+                for (RoomActor.Metrics m : gameSessionService.getRoomMetrics()) {
+                    System.out.printf("room %d: mailbox=%d (max %d), processed=%d, queue latency avg=%dus max=%dus%n",
+                            m.roomId(), m.mailboxDepth(), m.maxMailboxDepth(), m.processed(),
+                            m.avgQueueLatencyMicros(), m.maxQueueLatencyMicros());
+                }
+            }
         }
     }
 }
\ No newline at end of file
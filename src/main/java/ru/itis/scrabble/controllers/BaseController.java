@@ -65,15 +65,16 @@ public abstract class BaseController implements Initializable {
         }
 
         try {
-            // Превращаем полезную нагрузку в JSON-строку
-            String payloadJson = (payload instanceof String)
-                    ? (String) payload
-                    : objectMapper.writeValueAsString(payload);
-
-            // Отправляем асинхронно чтобы не блокировать JavaFX thread
-            networkService.sendMessageAsync(type, payloadJson);
-
-            System.out.println("Отправлена команда: " + type);
+            // Строка уходит как есть (v1), объект — JSON-поддеревом конверта v2.
+            // Отправка асинхронная, чтобы не блокировать JavaFX thread
+            boolean queued = (payload instanceof String text)
+                    ? networkService.sendMessageAsync(type, text)
+                    : networkService.sendStructured(type, payload);
+            if (queued) {
+                System.out.println("Отправлена команда: " + type);
+            } else {
+                System.err.println("Команда не отправлена (очередь отправки переполнена): " + type);
+            }
         } catch (Exception e) {
             System.err.println("Ошибка при подготовке сообщения: " + e.getMessage());
         }
@@ -95,12 +96,25 @@ public abstract class BaseController implements Initializable {
 
         try {
             String payloadJson = (data instanceof String) ? (String) data : objectMapper.writeValueAsString(data);
-            networkService.sendMessageAsync(command, payloadJson);
+            if (!networkService.sendMessageAsync(command, payloadJson)) {
+                System.err.println("Команда не отправлена (очередь отправки переполнена): " + command);
+            }
         } catch (Exception e) {
             System.err.println("Ошибка при подготовке JSON-команды: " + e.getMessage());
         }
     }
 
+    /**
+     * Сигнал о перегрузке очереди отправки (вызывается в потоке JavaFX).
+     * Контроллеры с частыми действиями (например, предпросмотр хода) могут
+     * переопределить метод и приостановить отправку, пока очередь не освободится.
+     */
+    public void onSendBackpressure(boolean congested) {
+        if (congested) {
+            System.err.println("Сеть не успевает отправлять сообщения");
+        }
+    }
+
     /**
      * Default DTO-based handler. For backward compatibility, if a subclass
      * implements `handleNetworkMessage(String)`, this will invoke it with a
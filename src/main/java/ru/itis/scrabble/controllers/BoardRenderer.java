@@ -0,0 +1,54 @@
+package ru.itis.scrabble.controllers;
+
+import javafx.scene.layout.GridPane;
+import ru.itis.scrabble.models.Tile;
+import ru.itis.scrabble.models.TileStyle;
+
+/**
+ * Отрисовка игрового поля 15x15 на экране игры.
+ * <p>
+ * Реализации перерисовывают только клетки, у которых изменилась фишка или подсветка.
+ * Выбирается свойством {@code -Dscrabble.boardRenderer}: {@code nodes} — клетка
+ * на отдельных узлах сцены (по умолчанию), {@code canvas} — все поле на одном {@code Canvas}.
+ * </p>
+ */
+public interface BoardRenderer {
+
+    /**
+     * Размещает поле в сетке из разметки экрана.
+     */
+    void attach(GridPane grid);
+
+    void setOnCellClick(CellClickHandler handler);
+
+    /**
+     * @return фишка, показанная в клетке (в том числе еще не подтвержденная), или null.
+     */
+    Tile getTile(int x, int y);
+
+    /**
+     * Фишка, лежащая на поле (null — клетка пуста).
+     */
+    void renderPlaced(int x, int y, Tile tile);
+
+    /**
+     * Фишка текущего, еще не отправленного хода — с подсветкой.
+     */
+    void renderPending(int x, int y, Tile tile);
+
+    /**
+     * Оформление выложенных фишек; уже выложенные фишки перерисовываются в новом стиле.
+     */
+    void setTileStyle(TileStyle style);
+
+    static BoardRenderer create() {
+        return "canvas".equalsIgnoreCase(System.getProperty("scrabble.boardRenderer"))
+                ? new CanvasBoardRenderer()
+                : new NodeBoardRenderer();
+    }
+
+    @FunctionalInterface
+    interface CellClickHandler {
+        void onCellClick(int x, int y);
+    }
+}
@@ -0,0 +1,173 @@
+package ru.itis.scrabble.controllers;
+
+import javafx.geometry.VPos;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.layout.GridPane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+import ru.itis.scrabble.models.Board;
+import ru.itis.scrabble.models.CellType;
+import ru.itis.scrabble.models.Tile;
+import ru.itis.scrabble.models.TileStyle;
+
+/**
+ * Поле на одном {@link Canvas}: вместо ~900 узлов сцены один узел без CSS и раскладки.
+ * <p>
+ * Изображения пустых клеток и фишек текущего стиля растрируются заранее,
+ * а при обновлении в холст копируются только изменившиеся клетки.
+ * Клетка под курсором находится по координатам щелчка.
+ * </p>
+ */
+public class CanvasBoardRenderer implements BoardRenderer {
+    // Геометрия совпадает с сеткой из разметки: клетка 30px и промежуток 3px
+    private static final double CELL = 30;
+    private static final double GAP = 3;
+    private static final double PITCH = CELL + GAP;
+    private static final double ARC = 5;
+    private static final Color BOARD_STROKE = Color.web("#8B4513");
+    private static final Color PENDING_STROKE = Color.web("#2E7D32");
+
+    private final Canvas canvas = new Canvas(Board.SIZE * PITCH - GAP, Board.SIZE * PITCH - GAP);
+    private final GraphicsContext gc = canvas.getGraphicsContext2D();
+    private final Tile[] tiles = new Tile[Board.CELL_COUNT];
+    private final boolean[] pending = new boolean[Board.CELL_COUNT];
+
+    private final Image[] emptyImages = new Image[CellType.values().length];
+    private final Image[] tileImages = new Image[Tile.values().length];
+    private CellClickHandler clickHandler;
+
+    public CanvasBoardRenderer() {
+        for (CellType type : CellType.values()) {
+            emptyImages[type.ordinal()] = rasterize(cell -> {
+                cell.setFill(NodeBoardRenderer.premiumColor(type));
+                cell.fillRoundRect(0.5, 0.5, CELL - 1, CELL - 1, ARC, ARC);
+                cell.setStroke(BOARD_STROKE);
+                cell.setLineWidth(1);
+                cell.strokeRoundRect(0.5, 0.5, CELL - 1, CELL - 1, ARC, ARC);
+            });
+        }
+        rasterizeTiles(TileStyle.CLASSIC);
+
+        canvas.setOnMouseClicked(event -> {
+            int x = (int) (event.getX() / PITCH);
+            int y = (int) (event.getY() / PITCH);
+            // Щелчок в промежутке между клетками не относится ни к одной из них
+            boolean insideCell = event.getX() - x * PITCH < CELL && event.getY() - y * PITCH < CELL;
+            if (insideCell && Board.inBounds(x, y) && clickHandler != null) {
+                clickHandler.onCellClick(x, y);
+            }
+        });
+        redrawAll();
+    }
+
+    private void rasterizeTiles(TileStyle style) {
+        Color fill = Color.web(style.getTileColor());
+        Color stroke = Color.web(style.getTileStroke());
+        Color text = Color.web(style.getTextColor());
+        Font letterFont = Font.font(null, FontWeight.BOLD, 14);
+        Font pointsFont = Font.font(8);
+
+        for (Tile tile : Tile.values()) {
+            tileImages[tile.ordinal()] = rasterize(glyph -> {
+                glyph.setFill(fill);
+                glyph.fillRoundRect(0.5, 0.5, CELL - 1, CELL - 1, ARC, ARC);
+                glyph.setStroke(stroke);
+                glyph.setLineWidth(1);
+                glyph.strokeRoundRect(0.5, 0.5, CELL - 1, CELL - 1, ARC, ARC);
+
+                glyph.setFill(text);
+                glyph.setTextAlign(TextAlignment.CENTER);
+                glyph.setTextBaseline(VPos.CENTER);
+                glyph.setFont(letterFont);
+                glyph.fillText(String.valueOf(tile.getLetter()), CELL / 2, CELL / 2 - 2);
+                glyph.setFont(pointsFont);
+                glyph.fillText(String.valueOf(tile.getPoints()), CELL / 2, CELL - 6);
+            });
+        }
+    }
+
+    private interface Painter {
+        void paint(GraphicsContext g);
+    }
+
+    private static Image rasterize(Painter painter) {
+        Canvas scratch = new Canvas(CELL, CELL);
+        painter.paint(scratch.getGraphicsContext2D());
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        return scratch.snapshot(parameters, null);
+    }
+
+    @Override
+    public void attach(GridPane grid) {
+        grid.add(canvas, 0, 0, Board.SIZE, Board.SIZE);
+    }
+
+    @Override
+    public void setOnCellClick(CellClickHandler handler) {
+        this.clickHandler = handler;
+    }
+
+    @Override
+    public Tile getTile(int x, int y) {
+        return tiles[Board.index(x, y)];
+    }
+
+    @Override
+    public void renderPlaced(int x, int y, Tile tile) {
+        update(x, y, tile, false);
+    }
+
+    @Override
+    public void renderPending(int x, int y, Tile tile) {
+        update(x, y, tile, true);
+    }
+
+    private void update(int x, int y, Tile tile, boolean isPending) {
+        int index = Board.index(x, y);
+        if (tiles[index] == tile && pending[index] == isPending) return;
+        tiles[index] = tile;
+        pending[index] = isPending;
+        drawCell(x, y);
+    }
+
+    @Override
+    public void setTileStyle(TileStyle style) {
+        rasterizeTiles(style);
+        redrawAll();
+    }
+
+    private void redrawAll() {
+        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        for (int y = 0; y < Board.SIZE; y++) {
+            for (int x = 0; x < Board.SIZE; x++) {
+                drawCell(x, y);
+            }
+        }
+    }
+
+    private void drawCell(int x, int y) {
+        int index = Board.index(x, y);
+        double left = x * PITCH;
+        double top = y * PITCH;
+        gc.clearRect(left, top, CELL, CELL);
+
+        Tile tile = tiles[index];
+        if (tile == null) {
+            gc.drawImage(emptyImages[Board.cellTypeAt(x, y).ordinal()], left, top);
+            return;
+        }
+        gc.drawImage(tileImages[tile.ordinal()], left, top);
+        if (pending[index]) {
+            // Подсветка новой фишки
+            gc.setStroke(PENDING_STROKE);
+            gc.setLineWidth(2);
+            gc.strokeRoundRect(left + 1, top + 1, CELL - 2, CELL - 2, ARC, ARC);
+        }
+    }
+}
@@ -1,17 +1,17 @@
 package ru.itis.scrabble.controllers;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
-import javafx.scene.layout.StackPane;
-import javafx.scene.shape.Rectangle;
-import javafx.scene.text.Text;
 import ru.itis.scrabble.dto.GameStateDTO;
+import ru.itis.scrabble.dto.GameStateDeltaDTO;
 import ru.itis.scrabble.dto.TilePlacementDTO;
 import ru.itis.scrabble.models.*;
+import ru.itis.scrabble.navigation.NavigationManager;
 import ru.itis.scrabble.navigation.View;
 import ru.itis.scrabble.dto.NetworkMessageDTO;
 import ru.itis.scrabble.network.MessageType;
@@ -49,32 +49,18 @@ public class GameController extends BaseController {
     // Игровое состояние
     private int roomPort;
     private GameStateDTO currentGameState;
-    private BoardCellUI[][] boardCellsUI = new BoardCellUI[15][15];
+    private BoardRenderer boardRenderer;
     private List<TilePlacementDTO> currentPlacements = new ArrayList<>();
     private Map<Long, String> playerNames = new HashMap<>();
     private Map<Long, Integer> playerScores = new HashMap<>();
     private Map<Long, Integer> lastMoveScores = new HashMap<>();
     private Long currentPlayerId;
+    // Очередь отправки перегружена: предпросмотр откладывается до ее освобождения
+    private boolean sendCongested;
     private int turnCount = 1;
     private int timeLeft = 90;
     private Timer gameTimer;
-
-    // Класс для отображения клетки доски
-    private static class BoardCellUI {
-        StackPane container;
-        Rectangle background;
-        Text letterText;
-        Text pointsText;
-        Tile currentTile;
-
-        public BoardCellUI(StackPane container, Rectangle background,
-                          Text letterText, Text pointsText) {
-            this.container = container;
-            this.background = background;
-            this.letterText = letterText;
-            this.pointsText = pointsText;
-        }
-    }
+    private long stateVersion = -1; // последняя примененная версия состояния с сервера
 
     @Override
     public void initialize(java.net.URL location, java.util.ResourceBundle resources) {
@@ -117,34 +103,16 @@ public class GameController extends BaseController {
     }
 
     private void initializeBoard() {
-        // Создаем игровое поле 15x15
-        for (int y = 0; y < 15; y++) {
-            for (int x = 0; x < 15; x++) {
-                StackPane cellContainer = new StackPane();
-                cellContainer.setPrefSize(35, 35);
-
-                Rectangle bg = new Rectangle(30, 30);
-                bg.setArcWidth(5);
-                bg.setArcHeight(5);
-                bg.setStyle("-fx-fill: #F5DEB3; -fx-stroke: #8B4513; -fx-stroke-width: 1;");
-
-                Text letter = new Text("");
-                letter.setStyle("-fx-font-weight: bold; -fx-font-size: 14;");
-
-                Text points = new Text("");
-                points.setStyle("-fx-font-size: 8; -fx-fill: #666;");
-                points.setTranslateY(10);
-
-                cellContainer.getChildren().addAll(bg, letter, points);
-
-                final int cellX = x;
-                final int cellY = y;
-                cellContainer.setOnMouseClicked(event -> handleCellClick(cellX, cellY));
+        // Создаем игровое поле 15x15 выбранным способом отрисовки
+        boardRenderer = BoardRenderer.create();
+        boardRenderer.setOnCellClick(this::handleCellClick);
+        boardRenderer.attach(gameBoard);
+    }
 
-                gameBoard.add(cellContainer, x, y);
-                boardCellsUI[y][x] = new BoardCellUI(cellContainer, bg, letter, points);
-            }
-        }
+    @Override
+    public void setNavigator(NavigationManager navigator) {
+        super.setNavigator(navigator);
+        boardRenderer.setTileStyle(navigator.getTileStyle());
     }
 
     private void handleCellClick(int x, int y) {
@@ -180,7 +148,7 @@ public class GameController extends BaseController {
 
     private void placeTile(Tile tile, int x, int y) {
         // Проверяем, свободна ли клетка
-        if (boardCellsUI[y][x].currentTile != null) {
+        if (boardRenderer.getTile(x, y) != null) {
             navigator.showError("Ошибка", "Клетка уже занята");
             return;
         }
@@ -193,6 +161,12 @@ public class GameController extends BaseController {
         updateCellUI(x, y, tile);
 
         // Отправляем предпросмотр на сервер (опционально)
+        if (!sendCongested) {
+            sendPreview();
+        }
+    }
+
+    private void sendPreview() {
         sendNetworkMessage("TILE_PREVIEW", Map.of(
             "placements", currentPlacements,
             "roomPort", roomPort,
@@ -200,14 +174,19 @@ public class GameController extends BaseController {
         ));
     }
 
-    private void updateCellUI(int x, int y, Tile tile) {
-        BoardCellUI cellUI = boardCellsUI[y][x];
-        cellUI.currentTile = tile;
-        cellUI.letterText.setText(String.valueOf(tile.getLetter()));
-        cellUI.pointsText.setText(String.valueOf(tile.getPoints()));
+    @Override
+    public void onSendBackpressure(boolean congested) {
+        super.onSendBackpressure(congested);
+        sendCongested = congested;
+        // Очередь освободилась: досылаем только последний предпросмотр
+        if (!congested && !currentPlacements.isEmpty()) {
+            sendPreview();
+        }
+    }
 
+    private void updateCellUI(int x, int y, Tile tile) {
         // Подсветка новой фишки
-        cellUI.background.setStyle("-fx-fill: #4CAF50; -fx-stroke: #2E7D32; -fx-stroke-width: 2;");
+        boardRenderer.renderPending(x, y, tile);
     }
 
     private void confirmMove() {
@@ -313,72 +292,134 @@ public class GameController extends BaseController {
     private void updateGameState(GameStateDTO gameState) {
         this.currentGameState = gameState;
 
-        Platform.runLater(() -> {
-            // Обновляем доску
-            updateBoard(gameState.getBoard());
+        // Обновляем доску
+        updateBoard(gameState.getBoard());
 
-            // Обновляем информацию об игроках
-            updatePlayersInfo(gameState.getPlayers());
+        // Обновляем информацию об игроках
+        updatePlayersInfo(gameState.getPlayers());
 
-            // Обновляем текущего игрока
-            currentPlayerId = gameState.getPlayers().get(gameState.getCurrentPlayerIndex()).getUserId();
-            currentTurnPlayerLabel.setText(playerNames.get(currentPlayerId));
+        // Обновляем текущего игрока
+        currentPlayerId = gameState.getPlayers().get(gameState.getCurrentPlayerIndex()).getUserId();
+        currentTurnPlayerLabel.setText(playerNames.get(currentPlayerId));
 
-            // Обновляем счетчик мешка
-            bagCountLabel.setText("Осталось букв: " + gameState.getBagCount());
+        // Обновляем счетчик мешка
+        bagCountLabel.setText("Осталось букв: " + gameState.getBagCount());
 
-            // Обновляем счетчик ходов
-            turnCountLabel.setText("Ход: " + turnCount);
+        // Обновляем счетчик ходов
+        turnCountLabel.setText("Ход: " + turnCount);
 
-            // Обновляем статус игры
-            if (gameState.isGameOver()) {
-                gameStatusLabel.setText("Игра завершена");
-                endGame();
-            } else {
-                gameStatusLabel.setText(isMyTurn() ? "Ваш ход" : "Ход противника");
-                updateButtonsState();
+        // Обновляем статус игры
+        if (gameState.isGameOver()) {
+            gameStatusLabel.setText("Игра завершена");
+            endGame();
+        } else {
+            gameStatusLabel.setText(isMyTurn() ? "Ваш ход" : "Ход противника");
+            updateButtonsState();
+        }
+
+        // Сбрасываем текущие размещения; доступность кнопок уже выставлена по очереди хода
+        currentPlacements.clear();
+    }
+
+    /**
+     * Применяет полный снимок (SYNC_STATE): начальное состояние игры или ответ
+     * на GET_GAME_STATE после пропуска версии. Перерисовывает поле, очки, очередь хода
+     * и мешок и задает версию, от которой отсчитываются следующие дельты.
+     */
+    private void applySnapshot(JsonNode state) {
+        if (state == null || !state.has("board") || !state.has("players")) {
+            stateVersion = -1;
+            return;
+        }
+
+        Board board = new Board();
+        JsonNode cells = state.path("board").path("boardCells");
+        for (int y = 0; y < Board.SIZE; y++) {
+            for (int x = 0; x < Board.SIZE; x++) {
+                JsonNode tile = cells.path(y).path(x).path("tile");
+                if (tile.isTextual()) {
+                    board.setCell(x, y, Tile.valueOf(tile.asText()));
+                }
             }
+        }
 
-            // Сбрасываем текущие размещения
-            currentPlacements.clear();
-            confirmMoveButton.setDisable(false);
-        });
+        List<Player> players = new ArrayList<>();
+        long currentId = state.path("currentPlayer").path("userId").asLong();
+        int currentIndex = 0;
+        for (JsonNode p : state.path("players")) {
+            Player player = new Player(p.path("userId").asLong(), p.path("username").asText(),
+                    p.path("score").asInt(), p.path("lastPoints").asInt());
+            if (player.getUserId() == currentId) currentIndex = players.size();
+            playerNames.putIfAbsent(player.getUserId(), player.getUsername());
+            players.add(player);
+        }
+        if (players.isEmpty()) {
+            stateVersion = -1;
+            return;
+        }
+
+        stateVersion = state.path("version").asLong(-1);
+        // Версия растет на каждый ход, начиная с 0 в начале игры
+        turnCount = (int) Math.max(0, stateVersion) + 1;
+        updateGameState(new GameStateDTO(board, players, currentIndex,
+                state.path("bag").path("remainingCount").asInt(), state.path("gameOver").asBoolean()));
     }
 
+    /**
+     * Применяет изменения одного хода (SYNC_DELTA). При пропуске версии
+     * запрашивает у сервера полный снимок состояния.
+     */
+    private void applyDelta(GameStateDeltaDTO delta) {
+        // Ход уже учтен полученным снимком
+        if (stateVersion >= 0 && delta.version() <= stateVersion) return;
+        if (stateVersion >= 0 && delta.version() != stateVersion + 1) {
+            stateVersion = -1;
+            sendNetworkMessage("GET_GAME_STATE", Map.of("roomPort", roomPort));
+            return;
+        }
+        stateVersion = delta.version();
+
+        for (TilePlacementDTO p : delta.placed()) {
+            boardRenderer.renderPlaced(p.x(), p.y(), p.tile());
+        }
+
+        playerScores.put(delta.moverId(), delta.moverScore());
+        lastMoveScores.put(delta.moverId(), delta.lastPoints());
+        String lastMove = "Последний ход: " + delta.lastPoints()
+                + (delta.bingoBonus() > 0 ? " (бинго +" + delta.bingoBonus() + ")" : "");
+        if (delta.moverId().equals(currentUserId)) {
+            myScoreLabel.setText("Всего очков: " + delta.moverScore());
+            myLastMoveLabel.setText(lastMove);
+        } else {
+            opponentScoreLabel.setText("Всего очков: " + delta.moverScore());
+            opponentLastMoveLabel.setText(lastMove);
+        }
+
+        currentPlayerId = delta.currentPlayerId();
+        currentTurnPlayerLabel.setText(playerNames.get(currentPlayerId));
+        bagCountLabel.setText("Осталось букв: " + delta.bagCount());
+        turnCount++;
+        turnCountLabel.setText("Ход: " + turnCount);
+
+        if (delta.gameOver()) {
+            gameStatusLabel.setText("Игра завершена");
+            endGame();
+        } else {
+            gameStatusLabel.setText(isMyTurn() ? "Ваш ход" : "Ход противника");
+            updateButtonsState();
+        }
+
+        currentPlacements.clear();
+    }
+
+    /**
+     * Синхронизирует поле с доской из снимка: затрагиваются только клетки,
+     * у которых изменилась фишка или подсветка с прошлой отрисовки.
+     */
     private void updateBoard(Board board) {
-        BoardCell[][] cells = board.getBoardCells();
-        for (int y = 0; y < 15; y++) {
-            for (int x = 0; x < 15; x++) {
-                BoardCell cell = cells[y][x];
-                BoardCellUI cellUI = boardCellsUI[y][x];
-
-                if (cell.getTile() != null) {
-                    cellUI.currentTile = cell.getTile();
-                    cellUI.letterText.setText(String.valueOf(cell.getTile().getLetter()));
-                    cellUI.pointsText.setText(String.valueOf(cell.getTile().getPoints()));
-
-                    // Устанавливаем цвет в зависимости от типа клетки
-                    switch (cell.getCellType()) {
-                        case DWS -> cellUI.background.setStyle("-fx-fill: #FFB6C1;");
-                        case TWS -> cellUI.background.setStyle("-fx-fill: #FF6347;");
-                        case DLS -> cellUI.background.setStyle("-fx-fill: #ADD8E6;");
-                        case TLS -> cellUI.background.setStyle("-fx-fill: #1E90FF;");
-                        default -> cellUI.background.setStyle("-fx-fill: #F5DEB3;");
-                    }
-                } else {
-                    cellUI.currentTile = null;
-                    cellUI.letterText.setText("");
-                    cellUI.pointsText.setText("");
-
-                    // Восстанавливаем цвет клетки по типу
-                    switch (cell.getCellType()) {
-                        case DWS -> cellUI.background.setStyle("-fx-fill: #FFB6C1; -fx-stroke: #8B4513;");
-                        case TWS -> cellUI.background.setStyle("-fx-fill: #FF6347; -fx-stroke: #8B4513;");
-                        case DLS -> cellUI.background.setStyle("-fx-fill: #ADD8E6; -fx-stroke: #8B4513;");
-                        case TLS -> cellUI.background.setStyle("-fx-fill: #1E90FF; -fx-stroke: #8B4513;");
-                        default -> cellUI.background.setStyle("-fx-fill: #F5DEB3; -fx-stroke: #8B4513;");
-                    }
-                }
+        for (int y = 0; y < Board.SIZE; y++) {
+            for (int x = 0; x < Board.SIZE; x++) {
+                boardRenderer.renderPlaced(x, y, board.getTile(x, y));
             }
         }
     }
@@ -474,95 +515,111 @@ public class GameController extends BaseController {
 
     @Override
     public void handleNetworkMessage(NetworkMessageDTO message) {
-        Platform.runLater(() -> {
-            try {
-                ObjectMapper mapper = new ObjectMapper();
-                String raw = message.payload() != null ? message.payload() : "";
-                String prefix;
-                String json;
-                int sep = raw.indexOf('|');
-                if (sep > 0) {
-                    prefix = raw.substring(0, sep);
-                    json = raw.substring(sep + 1);
-                } else {
-                    prefix = message.type() != null ? message.type().name() : "";
-                    json = raw;
-                }
+        // Вызывается в потоке JavaFX (см. UiMessageDispatcher)
+        try {
+            ObjectMapper mapper = new ObjectMapper();
+            String raw = message.payload() != null ? message.payload() : "";
+
+            if (message.type() == MessageType.SYNC_DELTA) {
+                applyDelta(message.isStructured()
+                        ? mapper.treeToValue(message.data(), GameStateDeltaDTO.class)
+                        : mapper.readValue(raw, GameStateDeltaDTO.class));
+                return;
+            }
+            if (message.type() == MessageType.SYNC_STATE) {
+                // Полный снимок заменяет все, что было на экране, и задает точку отсчета для дельт
+                applySnapshot(message.isStructured() ? message.data() : mapper.readTree(raw));
+                return;
+            }
+            String prefix;
+            String json;
+            int sep = raw.indexOf('|');
+            if (message.isStructured()) {
+                // v2: результат приходит отдельным полем, текст ошибки — в data.message
+                prefix = message.event() != null ? message.event() : message.type().name();
+                json = message.data() == null ? "{}"
+                        : message.data().has("message") ? message.text() : message.data().toString();
+            } else if (sep > 0) {
+                prefix = raw.substring(0, sep);
+                json = raw.substring(sep + 1);
+            } else {
+                prefix = message.type() != null ? message.type().name() : "";
+                json = raw;
+            }
 
-                if ("GAME_STATE_UPDATE".equals(prefix)) {
-                    GameStateDTO gameState = mapper.readValue(json, GameStateDTO.class);
-                    updateGameState(gameState);
-                    turnCount++;
-
-                } else if ("MOVE_ACCEPTED".equals(prefix)) {
-                    Map<String, Object> response = mapper.readValue(json, Map.class);
-                    int score = ((Number) response.get("score")).intValue();
-                    navigator.showDialog("Ход принят",
-                        "Вы получили " + score + " очков!");
-
-                } else if ("MOVE_REJECTED".equals(prefix)) {
-                    String error = json != null ? json : "";
-                    navigator.showError("Ход отклонен", error);
-                    confirmMoveButton.setDisable(false);
-
-                } else if ("TURN_SKIPPED".equals(prefix)) {
-                    navigator.showDialog("Ход пропущен", "Вы пропустили ход");
-
-                } else if ("TILES_CHANGED".equals(prefix)) {
-                    navigator.showDialog("Фишки заменены", "Фишки успешно заменены");
-
-                } else if ("DRAW_OFFERED".equals(prefix)) {
-                    Map<String, Object> response = mapper.readValue(json, Map.class);
-                    String opponentName = (String) response.get("opponentName");
-
-                    Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
-                    alert.setTitle("Предложение ничьей");
-                    alert.setHeaderText(opponentName + " предлагает ничью");
-                    alert.setContentText("Принять предложение?");
-
-                    alert.showAndWait().ifPresent(responseBtn -> {
-                        boolean accept = responseBtn == ButtonType.OK;
-                        sendNetworkMessage("DRAW_RESPONSE", Map.of(
-                            "roomPort", roomPort,
-                            "playerId", currentUserId,
-                            "accept", accept
-                        ));
-                    });
-
-                } else if ("DRAW_ACCEPTED".equals(prefix)) {
-                    navigator.showDialog("Ничья", "Оба игрока согласились на ничью");
-                    endGame();
-
-                } else if ("DRAW_REJECTED".equals(prefix)) {
-                    navigator.showDialog("Ничья отклонена", "Противник отклонил предложение ничьей");
-
-                } else if ("PLAYER_SURRENDERED".equals(prefix)) {
-                    Map<String, Object> response = mapper.readValue(json, Map.class);
-                    String playerName = (String) response.get("playerName");
-                    navigator.showDialog("Сдача", playerName + " сдался!");
-                    endGame();
-
-                } else if ("GAME_OVER".equals(prefix)) {
-                    Map<String, Object> response = mapper.readValue(json, Map.class);
-                    Long winnerId = ((Number) response.get("winnerId")).longValue();
-                    String winnerName = (String) response.get("winnerName");
-
-                    navigator.showDialog("Игра окончена",
-                        "Победитель: " + winnerName + "!\n" +
-                        "Ваш счет: " + playerScores.get(currentUserId) + "\n" +
-                        "Счет противника: " + playerScores.get(getOpponentId()));
-
-                    endGame();
-
-                } else if ("ERROR".equals(prefix) || MessageType.ERROR.name().equals(prefix)) {
-                    String error = json != null ? json : "";
-                    navigator.showError("Ошибка", error);
-                    confirmMoveButton.setDisable(false);
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
+            if ("GAME_STATE_UPDATE".equals(prefix)) {
+                GameStateDTO gameState = mapper.readValue(json, GameStateDTO.class);
+                updateGameState(gameState);
+                turnCount++;
+
+            } else if ("MOVE_ACCEPTED".equals(prefix)) {
+                Map<String, Object> response = mapper.readValue(json, Map.class);
+                int score = ((Number) response.get("score")).intValue();
+                navigator.showDialog("Ход принят",
+                    "Вы получили " + score + " очков!");
+
+            } else if ("MOVE_REJECTED".equals(prefix)) {
+                String error = json != null ? json : "";
+                navigator.showError("Ход отклонен", error);
+                confirmMoveButton.setDisable(false);
+
+            } else if ("TURN_SKIPPED".equals(prefix)) {
+                navigator.showDialog("Ход пропущен", "Вы пропустили ход");
+
+            } else if ("TILES_CHANGED".equals(prefix)) {
+                navigator.showDialog("Фишки заменены", "Фишки успешно заменены");
+
+            } else if ("DRAW_OFFERED".equals(prefix)) {
+                Map<String, Object> response = mapper.readValue(json, Map.class);
+                String opponentName = (String) response.get("opponentName");
+
+                Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+                alert.setTitle("Предложение ничьей");
+                alert.setHeaderText(opponentName + " предлагает ничью");
+                alert.setContentText("Принять предложение?");
+
+                alert.showAndWait().ifPresent(responseBtn -> {
+                    boolean accept = responseBtn == ButtonType.OK;
+                    sendNetworkMessage("DRAW_RESPONSE", Map.of(
+                        "roomPort", roomPort,
+                        "playerId", currentUserId,
+                        "accept", accept
+                    ));
+                });
+
+            } else if ("DRAW_ACCEPTED".equals(prefix)) {
+                navigator.showDialog("Ничья", "Оба игрока согласились на ничью");
+                endGame();
+
+            } else if ("DRAW_REJECTED".equals(prefix)) {
+                navigator.showDialog("Ничья отклонена", "Противник отклонил предложение ничьей");
+
+            } else if ("PLAYER_SURRENDERED".equals(prefix)) {
+                Map<String, Object> response = mapper.readValue(json, Map.class);
+                String playerName = (String) response.get("playerName");
+                navigator.showDialog("Сдача", playerName + " сдался!");
+                endGame();
+
+            } else if ("GAME_OVER".equals(prefix)) {
+                Map<String, Object> response = mapper.readValue(json, Map.class);
+                Long winnerId = ((Number) response.get("winnerId")).longValue();
+                String winnerName = (String) response.get("winnerName");
+
+                navigator.showDialog("Игра окончена",
+                    "Победитель: " + winnerName + "!\n" +
+                    "Ваш счет: " + playerScores.get(currentUserId) + "\n" +
+                    "Счет противника: " + playerScores.get(getOpponentId()));
+
+                endGame();
+
+            } else if ("ERROR".equals(prefix) || MessageType.ERROR.name().equals(prefix)) {
+                String error = json != null ? json : "";
+                navigator.showError("Ошибка", error);
+                confirmMoveButton.setDisable(false);
             }
-        });
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
     }
 
     private Long getOpponentId() {
@@ -1,5 +1,6 @@
 package ru.itis.scrabble.controllers;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
@@ -7,10 +8,10 @@ import javafx.scene.control.Label;
 import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
 import ru.itis.scrabble.navigation.View;
+import ru.itis.scrabble.dto.AuthRequestDTO;
 import ru.itis.scrabble.dto.NetworkMessageDTO;
 import ru.itis.scrabble.network.MessageType;
 
-import java.util.Map;
 
 public class LoginController extends BaseController {
 
@@ -48,12 +49,7 @@ public class LoginController extends BaseController {
         errorLabel.setVisible(false);
 
         // Отправляем запрос авторизации на сервер
-        Map<String, String> authData = Map.of(
-            "username", username,
-            "password", password
-        );
-
-        sendNetworkMessage("AUTH", authData);
+        sendNetworkMessage("AUTH", new AuthRequestDTO(username, password));
     }
 
     private void navigateToSignup() {
@@ -69,25 +65,37 @@ public class LoginController extends BaseController {
     public void handleNetworkMessage(NetworkMessageDTO message) {
         Platform.runLater(() -> {
             try {
-                // Теперь проверяем через Enum MessageType
-                if (message.type() == MessageType.AUTH_SUCCESS) {
-                    // Извлекаем JSON из payload (теперь это строка)
-                    String json = message.payload();
-                    Map<String, Object> response = objectMapper.readValue(json, Map.class);
+                // v2: результат в поле event, данные — готовым JSON-поддеревом;
+                // v1: "AUTH_SUCCESS|json" в payload сообщения AUTH или отдельный тип сообщения
+                String event;
+                String text;
+                if (message.isStructured()) {
+                    event = message.event();
+                    text = message.text();
+                } else {
+                    String raw = message.payload() != null ? message.payload() : "";
+                    int sep = raw.indexOf('|');
+                    if (sep > 0) {
+                        event = raw.substring(0, sep);
+                        text = raw.substring(sep + 1);
+                    } else {
+                        event = message.type().name();
+                        text = raw;
+                    }
+                }
 
-                    // Безопасное извлечение ID
-                    Long userId = ((Number) response.get("userId")).longValue();
-                    String username = (String) response.get("username");
+                if (MessageType.AUTH_SUCCESS.name().equals(event)) {
+                    JsonNode user = message.isStructured() ? message.data() : objectMapper.readTree(text);
 
-                    navigator.setCurrentUser(userId, username);
+                    navigator.setCurrentUser(user.path("userId").asLong(), user.path("username").asText());
                     navigator.navigate(View.MAIN_MENU);
 
-                } else if (message.type() == MessageType.AUTH_ERROR) {
-                    showError("Ошибка: " + message.payload());
+                } else if (MessageType.AUTH_ERROR.name().equals(event)) {
+                    showError("Ошибка: " + text);
                     loginButton.setDisable(false);
 
                 } else if (message.type() == MessageType.ERROR) {
-                    showError("Системная ошибка: " + message.payload());
+                    showError("Системная ошибка: " + text);
                     loginButton.setDisable(false);
                 }
 
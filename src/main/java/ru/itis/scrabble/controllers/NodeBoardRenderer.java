@@ -0,0 +1,175 @@
+package ru.itis.scrabble.controllers;
+
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.StackPane;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Text;
+import ru.itis.scrabble.models.Board;
+import ru.itis.scrabble.models.CellType;
+import ru.itis.scrabble.models.Tile;
+import ru.itis.scrabble.models.TileStyle;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Поле из узлов сцены: на каждую клетку StackPane с прямоугольником и двумя надписями.
+ */
+public class NodeBoardRenderer implements BoardRenderer {
+
+    // Оформление клеток создается один раз: при обновлении меняется только ссылка на стиль
+    private static final Paint BOARD_STROKE = Color.web("#8B4513");
+    private static final CellStyle PENDING_STYLE = new CellStyle(Color.web("#4CAF50"), Color.web("#2E7D32"), 2, Color.BLACK);
+    private static final Map<CellType, CellStyle> EMPTY_STYLES = new EnumMap<>(CellType.class);
+    // Выложенные фишки оформляются по выбранному стилю фишек (TileStyle), как и на Canvas
+    private static final Map<TileStyle, CellStyle> TILE_STYLES = new EnumMap<>(TileStyle.class);
+    // Подписи фишек по ordinal(), чтобы не собирать строки при каждой отрисовке
+    private static final String[] LETTER_TEXT = new String[Tile.values().length];
+    private static final String[] POINTS_TEXT = new String[Tile.values().length];
+
+    static {
+        for (CellType type : CellType.values()) {
+            Paint fill = premiumColor(type);
+            EMPTY_STYLES.put(type, new CellStyle(fill, BOARD_STROKE, 1, Color.BLACK));
+        }
+        for (TileStyle style : TileStyle.values()) {
+            TILE_STYLES.put(style, new CellStyle(Color.web(style.getTileColor()), Color.web(style.getTileStroke()), 1,
+                    Color.web(style.getTextColor())));
+        }
+        for (Tile tile : Tile.values()) {
+            LETTER_TEXT[tile.ordinal()] = String.valueOf(tile.getLetter());
+            POINTS_TEXT[tile.ordinal()] = String.valueOf(tile.getPoints());
+        }
+    }
+
+    private final BoardCellUI[][] cells = new BoardCellUI[Board.SIZE][Board.SIZE];
+    private CellClickHandler clickHandler;
+    private CellStyle tileStyle = TILE_STYLES.get(TileStyle.CLASSIC);
+
+    static Color premiumColor(CellType type) {
+        return Color.web(switch (type) {
+            case DWS -> "#FFB6C1";
+            case TWS -> "#FF6347";
+            case DLS -> "#ADD8E6";
+            case TLS -> "#1E90FF";
+            default -> "#F5DEB3";
+        });
+    }
+
+    private record CellStyle(Paint fill, Paint stroke, double strokeWidth, Paint letterFill) {
+        void applyTo(Rectangle rectangle, Text letter) {
+            rectangle.setFill(fill);
+            rectangle.setStroke(stroke);
+            rectangle.setStrokeWidth(strokeWidth);
+            letter.setFill(letterFill);
+        }
+    }
+
+    // Класс для отображения клетки доски
+    private static class BoardCellUI {
+        StackPane container;
+        Rectangle background;
+        Text letterText;
+        Text pointsText;
+        Tile currentTile;
+        CellType cellType;
+        CellStyle currentStyle;
+
+        public BoardCellUI(StackPane container, Rectangle background,
+                          Text letterText, Text pointsText, CellType cellType) {
+            this.container = container;
+            this.background = background;
+            this.letterText = letterText;
+            this.pointsText = pointsText;
+            this.cellType = cellType;
+        }
+
+        /**
+         * Перерисовывает клетку, только если изменилась фишка или оформление.
+         */
+        void render(Tile tile, CellStyle style) {
+            if (tile != currentTile) {
+                currentTile = tile;
+                letterText.setText(tile == null ? "" : LETTER_TEXT[tile.ordinal()]);
+                pointsText.setText(tile == null ? "" : POINTS_TEXT[tile.ordinal()]);
+            }
+            if (style != currentStyle) {
+                currentStyle = style;
+                style.applyTo(background, letterText);
+            }
+        }
+    }
+
+    @Override
+    public void attach(GridPane grid) {
+        // Создаем игровое поле 15x15
+        for (int y = 0; y < Board.SIZE; y++) {
+            for (int x = 0; x < Board.SIZE; x++) {
+                StackPane cellContainer = new StackPane();
+                cellContainer.setPrefSize(35, 35);
+
+                Rectangle bg = new Rectangle(30, 30);
+                bg.setArcWidth(5);
+                bg.setArcHeight(5);
+
+                Text letter = new Text("");
+                letter.setStyle("-fx-font-weight: bold; -fx-font-size: 14;");
+
+                Text points = new Text("");
+                points.setStyle("-fx-font-size: 8; -fx-fill: #666;");
+                points.setTranslateY(10);
+
+                cellContainer.getChildren().addAll(bg, letter, points);
+
+                final int cellX = x;
+                final int cellY = y;
+                cellContainer.setOnMouseClicked(_ -> {
+                    if (clickHandler != null) clickHandler.onCellClick(cellX, cellY);
+                });
+
+                grid.add(cellContainer, x, y);
+                BoardCellUI cellUI = new BoardCellUI(cellContainer, bg, letter, points, Board.cellTypeAt(x, y));
+                cellUI.render(null, EMPTY_STYLES.get(cellUI.cellType));
+                cells[y][x] = cellUI;
+            }
+        }
+    }
+
+    @Override
+    public void setOnCellClick(CellClickHandler handler) {
+        this.clickHandler = handler;
+    }
+
+    @Override
+    public Tile getTile(int x, int y) {
+        return cells[y][x].currentTile;
+    }
+
+    @Override
+    public void renderPlaced(int x, int y, Tile tile) {
+        BoardCellUI cell = cells[y][x];
+        cell.render(tile, tile == null ? EMPTY_STYLES.get(cell.cellType) : tileStyle);
+    }
+
+    @Override
+    public void renderPending(int x, int y, Tile tile) {
+        // Подсветка новой фишки
+        cells[y][x].render(tile, PENDING_STYLE);
+    }
+
+    @Override
+    public void setTileStyle(TileStyle style) {
+        CellStyle previous = tileStyle;
+        tileStyle = TILE_STYLES.get(style);
+        // Стиль может прийти и до attach(), и во время игры: перекрашиваем уже выложенные фишки
+        for (BoardCellUI[] row : cells) {
+            for (BoardCellUI cell : row) {
+                if (cell != null && cell.currentStyle == previous) {
+                    cell.render(cell.currentTile, tileStyle);
+                }
+            }
+        }
+    }
+}
@@ -10,6 +10,7 @@ import javafx.scene.control.ToggleGroup;
 import javafx.scene.layout.StackPane;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Text;
+import ru.itis.scrabble.models.TileStyle;
 import ru.itis.scrabble.navigation.View;
 import ru.itis.scrabble.dto.NetworkMessageDTO;
 import ru.itis.scrabble.network.MessageType;
@@ -37,64 +38,13 @@ public class TilesStylesController extends BaseController {
     @FXML private Label statusLabel;
 
     private int currentStyleId = 1;
-    private Map<Integer, StyleInfo> styles;
-
-    // Информация о стилях
-    private static class StyleInfo {
-        String name;
-        String description;
-        String effects;
-        String tileColor;
-        String tileStroke;
-        String textColor;
-
-        StyleInfo(String name, String description, String effects,
-                 String tileColor, String tileStroke, String textColor) {
-            this.name = name;
-            this.description = description;
-            this.effects = effects;
-            this.tileColor = tileColor;
-            this.tileStroke = tileStroke;
-            this.textColor = textColor;
-        }
-    }
 
     @Override
     public void initialize(java.net.URL location, java.util.ResourceBundle resources) {
-        initializeStyles();
         setupEventHandlers();
         loadCurrentStyle();
     }
 
-    private void initializeStyles() {
-        styles = Map.of(
-            1, new StyleInfo("Классический",
-                "Классический деревянный стиль фишек, напоминающий оригинальную настольную игру.",
-                "Влияние на геймплей: только визуальное",
-                "#F5DEB3", "#8B4513", "#8B4513"),
-            2, new StyleInfo("Современный",
-                "Современный зеленый дизайн с чистыми линиями и контрастными цветами.",
-                "Влияние на геймплей: только визуальное",
-                "#4CAF50", "#2E7D32", "white"),
-            3, new StyleInfo("Темный",
-                "Темная тема с высоким контрастом для комфортной игры при слабом освещении.",
-                "Влияние на геймплей: только визуальное",
-                "#2C3E50", "#1A252F", "#ECF0F1"),
-            4, new StyleInfo("Пастельный",
-                "Нежные пастельные тона для расслабляющей и спокойной игры.",
-                "Влияние на геймплей: только визуальное",
-                "#E1BEE7", "#9C27B0", "#9C27B0"),
-            5, new StyleInfo("Океанский",
-                "Морская тема с оттенками синего, напоминающая океанские глубины.",
-                "Влияние на геймплей: только визуальное",
-                "#2196F3", "#0D47A1", "white"),
-            6, new StyleInfo("Осенний",
-                "Теплые осенние тона с оранжевыми и желтыми оттенками.",
-                "Влияние на геймплей: только визуальное",
-                "#FF9800", "#EF6C00", "white")
-        );
-    }
-
     private void setupEventHandlers() {
         // Обработчики для радиокнопок
         classicRadio.setOnAction(_ -> selectStyle(1));
@@ -115,15 +65,13 @@ public class TilesStylesController extends BaseController {
     }
 
     private void selectStyle(int styleId) {
-        StyleInfo style = styles.get(styleId);
-        if (style != null) {
-            currentStyleId = styleId;
-            updateStylePreview(style);
-            updateStyleInfo(style);
-        }
+        TileStyle style = TileStyle.byId(styleId);
+        currentStyleId = style.getId();
+        updateStylePreview(style);
+        updateStyleInfo(style);
     }
 
-    private void updateStylePreview(StyleInfo style) {
+    private void updateStylePreview(TileStyle style) {
         // Очищаем preview
         currentStylePreview.getChildren().clear();
 
@@ -132,19 +80,19 @@ public class TilesStylesController extends BaseController {
         tile.setArcWidth(8);
         tile.setArcHeight(8);
         tile.setStyle(String.format("-fx-fill: %s; -fx-stroke: %s; -fx-stroke-width: 2;",
-            style.tileColor, style.tileStroke));
+            style.getTileColor(), style.getTileStroke()));
 
         Text letter = new Text("A");
         letter.setStyle(String.format("-fx-font-weight: bold; -fx-font-size: 20; -fx-fill: %s;",
-            style.textColor));
+            style.getTextColor()));
 
         currentStylePreview.getChildren().addAll(tile, letter);
-        currentStyleName.setText(style.name);
+        currentStyleName.setText(style.getDisplayName());
     }
 
-    private void updateStyleInfo(StyleInfo style) {
-        styleDescription.setText(style.description);
-        styleEffects.setText(style.effects);
+    private void updateStyleInfo(TileStyle style) {
+        styleDescription.setText(style.getDescription());
+        styleEffects.setText("Влияние на геймплей: только визуальное");
     }
 
     private void applyStyle() {
@@ -188,6 +136,7 @@ public class TilesStylesController extends BaseController {
                     Map<String, Object> response = mapper.readValue(json, Map.class);
                     int styleId = ((Number) response.get("styleId")).intValue();
                     selectStyle(styleId);
+                    navigator.setTileStyle(TileStyle.byId(styleId));
                     switch (styleId) {
                         case 1 -> classicRadio.setSelected(true);
                         case 2 -> modernRadio.setSelected(true);
@@ -206,6 +155,7 @@ public class TilesStylesController extends BaseController {
                     applyButton.setText("Применить стиль");
                     statusLabel.setText("Стиль успешно применен");
                     selectStyle(newStyleId);
+                    navigator.setTileStyle(TileStyle.byId(newStyleId));
 
                 } else if ("STYLE_UPDATE_ERROR".equals(prefix)) {
                     String error = json != null ? json : "";
@@ -0,0 +1,7 @@
+package ru.itis.scrabble.dto;
+
+public record AuthRequestDTO(
+        String username,
+        String password
+) {
+}
@@ -0,0 +1,11 @@
+package ru.itis.scrabble.dto;
+
+/**
+ * Ошибка для клиента: машиночитаемый код (например, {@code INVALID_FORMAT}, {@code NOT_YOUR_TURN})
+ * и текст для показа пользователю.
+ */
+public record ErrorDTO(
+        String code,
+        String message
+) {
+}
@@ -0,0 +1,24 @@
+package ru.itis.scrabble.dto;
+
+import ru.itis.scrabble.models.Tile;
+
+import java.util.List;
+
+/**
+ * Изменение состояния игры после одного хода (SYNC_DELTA).
+ * {@code rack} заполняется только для игрока, сделавшего ход; остальным приходит {@code null}.
+ * {@code bingoBonus} — бонус за ход всеми фишками стойки, уже включенный в {@code lastPoints}.
+ */
+public record GameStateDeltaDTO(
+        long version,
+        Long moverId,
+        List<TilePlacementDTO> placed,
+        int moverScore,
+        int lastPoints,
+        int bingoBonus,
+        List<Tile> rack,
+        int bagCount,
+        Long currentPlayerId,
+        boolean gameOver
+) {
+}
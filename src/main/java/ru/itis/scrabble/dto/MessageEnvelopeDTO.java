@@ -0,0 +1,33 @@
+package ru.itis.scrabble.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import ru.itis.scrabble.network.MessageType;
+
+/**
+ * Конверт протокола v2.
+ * <p>
+ * В отличие от {@link NetworkMessageDTO}, {@code payload} передается как JSON-поддерево
+ * (объект DTO, а не строка с экранированным JSON), а результат операции
+ * ({@code MOVE_ACCEPTED}, {@code AUTH_SUCCESS} и т.п.) — в отдельном поле {@code event},
+ * а не префиксом строки. Тип объекта в {@code payload} для каждого
+ * {@link MessageType} задает {@link ru.itis.scrabble.network.PayloadRegistry}.
+ * </p>
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record MessageEnvelopeDTO(
+        int v,
+        MessageType type,
+        String event,
+        Object payload,
+        String senderId
+) {
+    public static final int VERSION = 2;
+
+    public static MessageEnvelopeDTO of(MessageType type, String event, Object payload, String senderId) {
+        return new MessageEnvelopeDTO(VERSION, type, event, payload, senderId);
+    }
+
+    public static MessageEnvelopeDTO fromServer(MessageType type, String event, Object payload) {
+        return of(type, event, payload, "SERVER");
+    }
+}
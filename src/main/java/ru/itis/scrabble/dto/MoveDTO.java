@@ -0,0 +1,12 @@
+package ru.itis.scrabble.dto;
+
+import java.util.List;
+
+/**
+ * Допустимый ход, найденный генератором ходов: выставляемые фишки и очки за ход.
+ */
+public record MoveDTO(
+        List<TilePlacementDTO> placements,
+        int score
+) {
+}
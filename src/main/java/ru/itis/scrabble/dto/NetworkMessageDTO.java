@@ -1,11 +1,45 @@
 package ru.itis.scrabble.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
 import ru.itis.scrabble.network.MessageType;
 
+/**
+ * Сообщение протокола.
+ * <p>
+ * В v1 {@code payload} — строка (часто {@code "СОБЫТИЕ|json"}). В v2 клиент получает
+ * результат в {@code event}, а данные — готовым JSON-поддеревом в {@code data}
+ * (см. {@link MessageEnvelopeDTO}); {@code payload} при этом пуст.
+ * </p>
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record NetworkMessageDTO(
         MessageType type,
         String payload,
-        String senderId
+        String senderId,
+        String event,
+        JsonNode data
 ) {
+    public NetworkMessageDTO(MessageType type, String payload, String senderId) {
+        this(type, payload, senderId, null, null);
+    }
 
-}
\ No newline at end of file
+    /**
+     * @return true, если сообщение пришло в формате v2.
+     */
+    @JsonIgnore
+    public boolean isStructured() {
+        return event != null || data != null;
+    }
+
+    /**
+     * Текст сообщения (причина ошибки и т.п.) для обоих форматов.
+     */
+    @JsonIgnore
+    public String text() {
+        if (!isStructured()) return payload != null ? payload : "";
+        if (data == null) return "";
+        return data.has("message") ? data.get("message").asText() : data.toString();
+    }
+}
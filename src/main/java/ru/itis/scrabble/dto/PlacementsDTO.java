@@ -0,0 +1,8 @@
+package ru.itis.scrabble.dto;
+
+import java.util.List;
+
+public record PlacementsDTO(
+        List<TilePlacementDTO> placements
+) {
+}
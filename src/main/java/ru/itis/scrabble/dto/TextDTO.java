@@ -0,0 +1,9 @@
+package ru.itis.scrabble.dto;
+
+/**
+ * Текстовое пояснение к событию или ошибке (например, причина отклонения хода).
+ */
+public record TextDTO(
+        String message
+) {
+}
@@ -3,39 +3,158 @@ package ru.itis.scrabble.models;
 /**
  * Модель игрового поля.
  * <p>
- * Представляет собой двумерную сетку клеток, на которые размещаются фишки.
+ * Хранит поле 15x15 в компактном виде: по одному байту на клетку
+ * (0 — клетка пуста, иначе {@code ordinal() + 1} фишки). Расстановка бонусных
+ * клеток одинакова для всех партий и хранится в общей статической таблице.
  * </p>
  *
  * <br>
  * <b>Поля класса:</b>
  * <ul>
- *     <li>{@code cells} - двумерный массив клеток игрового поля</li>
+ *     <li>{@code tiles} - фишки на поле, индекс клетки {@code y * 15 + x}</li>
+ *     <li>{@code placedCount} - количество выставленных фишек</li>
  * </ul>
  */
 public class Board {
-    private final BoardCell[][] boardCells;
+    public static final int SIZE = 15;
+    public static final int CELL_COUNT = SIZE * SIZE;
 
-    public Board(BoardCell[][] boardCells) {
-        this.boardCells = boardCells;
+    private static final Tile[] TILES = Tile.values();
+    private static final CellType[] CELL_TYPES = CellType.values();
+
+    // Классическая расстановка бонусов, общая для всех досок: ordinal() типа клетки
+    private static final byte[] PREMIUMS = new byte[CELL_COUNT];
+    // Те же бонусы в виде готовых множителей для подсчета очков целочисленной арифметикой
+    private static final byte[] LETTER_MULTIPLIERS = new byte[CELL_COUNT];
+    private static final byte[] WORD_MULTIPLIERS = new byte[CELL_COUNT];
+
+    static {
+        // Triple Word Score (TWS) - красные клетки
+        int[][] twsCoords = {{0,0}, {0,7}, {0,14}, {7,0}, {7,14}, {14,0}, {14,7}, {14,14}};
+        setBonus(twsCoords, CellType.TWS);
+
+        // Double Word Score (DWS) - розовые клетки
+        int[][] dwsCoords = {
+                {1,1}, {2,2}, {3,3}, {4,4}, {1,13}, {2,12}, {3,11}, {4,10},
+                {13,1}, {12,2}, {11,3}, {10,4}, {13,13}, {12,12}, {11,11}, {10,10}, {7,7}
+        };
+        setBonus(dwsCoords, CellType.DWS);
+
+        // Triple Letter Score (TLS) - синие клетки
+        int[][] tlsCoords = {
+                {1,5}, {1,9}, {5,1}, {5,5}, {5,9}, {5,13},
+                {9,1}, {9,5}, {9,9}, {9,13}, {13,5}, {13,9}
+        };
+        setBonus(tlsCoords, CellType.TLS);
+
+        // Double Letter Score (DLS) - голубые клетки
+        int[][] dlsCoords = {
+                {0,3}, {0,11}, {2,6}, {2,8}, {3,0}, {3,7}, {3,14}, {6,2}, {6,6}, {6,8}, {6,12},
+                {7,3}, {7,11}, {8,2}, {8,6}, {8,8}, {8,12}, {11,0}, {11,7}, {11,14}, {12,6}, {12,8}, {14,3}, {14,11}
+        };
+        setBonus(dlsCoords, CellType.DLS);
+
+        for (int i = 0; i < CELL_COUNT; i++) {
+            CellType type = CELL_TYPES[PREMIUMS[i]];
+            LETTER_MULTIPLIERS[i] = (byte) (type == CellType.DLS ? 2 : type == CellType.TLS ? 3 : 1);
+            WORD_MULTIPLIERS[i] = (byte) (type == CellType.DWS ? 2 : type == CellType.TWS ? 3 : 1);
+        }
     }
 
-    public BoardCell[][] getBoardCells() {
-        return boardCells;
+    private final byte[] tiles;
+    private int placedCount;
+
+    public Board() {
+        this.tiles = new byte[CELL_COUNT];
+    }
+
+    private static void setBonus(int[][] coords, CellType type) {
+        for (int[] coord : coords) {
+            int y = coord[0];
+            int x = coord[1];
+            PREMIUMS[index(x, y)] = (byte) type.ordinal();
+        }
+    }
+
+    public static int index(int x, int y) {
+        return y * SIZE + x;
+    }
+
+    public static boolean inBounds(int x, int y) {
+        return x >= 0 && x < SIZE && y >= 0 && y < SIZE;
+    }
+
+    /**
+     * Тип бонусной клетки. Не зависит от конкретной доски.
+     */
+    public static CellType cellTypeAt(int x, int y) {
+        return CELL_TYPES[PREMIUMS[index(x, y)]];
+    }
+
+    /**
+     * Множитель буквы клетки {@code index}: 2 для DLS, 3 для TLS, иначе 1.
+     */
+    public static int letterMultiplier(int index) {
+        return LETTER_MULTIPLIERS[index];
+    }
+
+    /**
+     * Множитель слова клетки {@code index}: 2 для DWS, 3 для TWS, иначе 1.
+     */
+    public static int wordMultiplier(int index) {
+        return WORD_MULTIPLIERS[index];
+    }
+
+    public CellType getCellType(int x, int y) {
+        return cellTypeAt(x, y);
+    }
+
+    public Tile getTile(int x, int y) {
+        int code = tiles[index(x, y)];
+        return code == 0 ? null : TILES[code - 1];
+    }
+
+    /**
+     * Код клетки по индексу: 0 — пусто, иначе {@code ordinal() + 1} фишки.
+     */
+    public int codeAt(int index) {
+        return tiles[index];
+    }
+
+    public boolean hasTile(int x, int y) {
+        return tiles[index(x, y)] != 0;
     }
 
     public void setCell(int x, int y, Tile tile) {
-        if (boardCells[y][x].getTile() != null)
+        int i = index(x, y);
+        if (tiles[i] != 0 || tile == null)
             return;
 
-        boardCells[y][x].setTile(tile);
+        tiles[i] = (byte) (tile.ordinal() + 1);
+        placedCount++;
+    }
+
+    public int getPlacedCount() {
+        return placedCount;
     }
 
     public boolean isEmpty() {
-        for (BoardCell[] row : boardCells) {
-            for (BoardCell cell : row) {
-                if (cell.getTile() != null) return false;
+        return placedCount == 0;
+    }
+
+    /**
+     * Представление поля в виде сетки клеток для сериализации полного снимка состояния.
+     * Создает новые объекты при каждом вызове, поэтому не предназначено для игровой логики.
+     */
+    public BoardCell[][] getBoardCells() {
+        BoardCell[][] cells = new BoardCell[SIZE][SIZE];
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                BoardCell cell = new BoardCell(cellTypeAt(x, y));
+                cell.setTile(getTile(x, y));
+                cells[y][x] = cell;
             }
         }
-        return true;
+        return cells;
     }
 }
@@ -0,0 +1,38 @@
+package ru.itis.scrabble.models;
+
+/**
+ * Уровень сложности бота.
+ * <p>
+ * Определяет время на поиск хода по умолчанию и то, насколько сильный ход
+ * выбирается из найденных: {@code pickFrom} — доля лучших по очкам ходов,
+ * среди которых выбирается случайный, {@code maxTiles} — сколько фишек бот
+ * готов выложить за ход.
+ * </p>
+ */
+public enum BotDifficulty {
+    EASY(150, 1.0, 4),
+    MEDIUM(400, 0.25, 7),
+    HARD(1500, 0.0, 7);
+
+    private final long moveBudgetMillis;
+    private final double pickFrom;
+    private final int maxTiles;
+
+    BotDifficulty(long moveBudgetMillis, double pickFrom, int maxTiles) {
+        this.moveBudgetMillis = moveBudgetMillis;
+        this.pickFrom = pickFrom;
+        this.maxTiles = maxTiles;
+    }
+
+    public long getMoveBudgetMillis() {
+        return moveBudgetMillis;
+    }
+
+    public double getPickFrom() {
+        return pickFrom;
+    }
+
+    public int getMaxTiles() {
+        return maxTiles;
+    }
+}
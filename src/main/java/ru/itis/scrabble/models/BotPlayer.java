@@ -0,0 +1,45 @@
+package ru.itis.scrabble.models;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Игрок, ходы за которого вычисляет сервер.
+ * <p>
+ * Боты не связаны с пользователями из БД, поэтому получают отрицательные ID,
+ * которые не пересекаются с ID настоящих пользователей.
+ * </p>
+ */
+public class BotPlayer extends Player {
+    private static final AtomicLong ID_SEQUENCE = new AtomicLong();
+
+    private final BotDifficulty difficulty;
+
+    private final long moveBudgetMillis;
+
+    public BotPlayer(BotDifficulty difficulty) {
+        this(difficulty, difficulty.getMoveBudgetMillis());
+    }
+
+    public BotPlayer(BotDifficulty difficulty, long moveBudgetMillis) {
+        this(-ID_SEQUENCE.incrementAndGet(), difficulty, moveBudgetMillis);
+    }
+
+    private BotPlayer(long id, BotDifficulty difficulty, long moveBudgetMillis) {
+        super(id, "Bot " + (-id) + " (" + difficulty + ")");
+        this.difficulty = difficulty;
+        this.moveBudgetMillis = moveBudgetMillis;
+    }
+
+    @Override
+    public boolean isBot() {
+        return true;
+    }
+
+    public BotDifficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public long getMoveBudgetMillis() {
+        return moveBudgetMillis;
+    }
+}
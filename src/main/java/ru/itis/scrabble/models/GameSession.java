@@ -9,6 +9,10 @@ public class GameSession {
     private int currentPlayerIndex;
     private int localPlayerIndex;
     private boolean isGameOver;
+    // Версия состояния: увеличивается при каждом изменении, по ней клиенты находят пропущенные дельты
+    private long version;
+    // Ходы подряд без выложенных фишек; игра заканчивается, когда все игроки дважды спасовали
+    private int consecutivePasses;
 
     public GameSession(Board board, Bag bag, List<Player> players) {
         this.board = board;
@@ -43,6 +47,22 @@ public class GameSession {
         return players;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public long advanceVersion() {
+        return ++version;
+    }
+
+    public int registerPass() {
+        return ++consecutivePasses;
+    }
+
+    public void resetPasses() {
+        consecutivePasses = 0;
+    }
+
     public boolean isGameOver() {
         return isGameOver;
     }
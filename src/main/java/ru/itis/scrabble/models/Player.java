@@ -39,6 +39,15 @@ public class Player {
         this.rack = new ArrayList<>();
     }
 
+    /**
+     * Игрок, восстановленный клиентом из полного снимка состояния (SYNC_STATE).
+     */
+    public Player(Long userId, String username, int score, int lastPoints) {
+        this(userId, username);
+        this.score = score;
+        this.lastPoints = lastPoints;
+    }
+
     public Long getUserId() {
         return userId;
     }
@@ -56,6 +65,13 @@ public class Player {
         score += points;
     }
 
+    /**
+     * @return true, если ходы за игрока делает сервер (см. {@link BotPlayer}).
+     */
+    public boolean isBot() {
+        return false;
+    }
+
     public boolean isConnected() {
         return isConnected;
     }
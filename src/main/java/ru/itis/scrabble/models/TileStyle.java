@@ -0,0 +1,79 @@
+package ru.itis.scrabble.models;
+
+/**
+ * Стили оформления фишек, которые пользователь выбирает в настройках.
+ * <p>
+ * {@code id} совпадает с идентификатором стиля, который хранит сервер.
+ * </p>
+ */
+public enum TileStyle {
+    CLASSIC(1, "Классический",
+            "Классический деревянный стиль фишек, напоминающий оригинальную настольную игру.",
+            "#F5DEB3", "#8B4513", "#8B4513"),
+    MODERN(2, "Современный",
+            "Современный зеленый дизайн с чистыми линиями и контрастными цветами.",
+            "#4CAF50", "#2E7D32", "white"),
+    DARK(3, "Темный",
+            "Темная тема с высоким контрастом для комфортной игры при слабом освещении.",
+            "#2C3E50", "#1A252F", "#ECF0F1"),
+    PASTEL(4, "Пастельный",
+            "Нежные пастельные тона для расслабляющей и спокойной игры.",
+            "#E1BEE7", "#9C27B0", "#9C27B0"),
+    OCEAN(5, "Океанский",
+            "Морская тема с оттенками синего, напоминающая океанские глубины.",
+            "#2196F3", "#0D47A1", "white"),
+    AUTUMN(6, "Осенний",
+            "Теплые осенние тона с оранжевыми и желтыми оттенками.",
+            "#FF9800", "#EF6C00", "white");
+
+    private final int id;
+    private final String displayName;
+    private final String description;
+    private final String tileColor;
+    private final String tileStroke;
+    private final String textColor;
+
+    TileStyle(int id, String displayName, String description,
+              String tileColor, String tileStroke, String textColor) {
+        this.id = id;
+        this.displayName = displayName;
+        this.description = description;
+        this.tileColor = tileColor;
+        this.tileStroke = tileStroke;
+        this.textColor = textColor;
+    }
+
+    /**
+     * @return стиль с указанным идентификатором или классический, если такого нет.
+     */
+    public static TileStyle byId(int id) {
+        for (TileStyle style : values()) {
+            if (style.id == id) return style;
+        }
+        return CLASSIC;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getTileColor() {
+        return tileColor;
+    }
+
+    public String getTileStroke() {
+        return tileStroke;
+    }
+
+    public String getTextColor() {
+        return textColor;
+    }
+}
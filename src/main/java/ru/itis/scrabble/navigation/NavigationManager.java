@@ -5,6 +5,7 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import ru.itis.scrabble.controllers.BaseController;
+import ru.itis.scrabble.models.TileStyle;
 import ru.itis.scrabble.network.NetworkClient;
 import ru.itis.scrabble.network.ServerMessageHandler;
 
@@ -14,6 +15,9 @@ public class NavigationManager {
     private final Stage stage;
     private NetworkClient networkService;
     private ServerMessageHandler messageHandler;
+    private BaseController currentController;
+    // Стиль фишек пользователя, общий для всех экранов
+    private TileStyle tileStyle = TileStyle.CLASSIC;
     private Long currentUserId;
     private String currentUsername;
 
@@ -22,6 +26,24 @@ public class NavigationManager {
         this.stage = stage;
         this.messageHandler = new ServerMessageHandler();
         this.messageHandler.setNavigationManager(this);
+        // Сигналы перегрузки очереди отправки получает активный экран
+        this.networkService.setBackpressureListener(congested -> {
+            if (currentController != null) {
+                currentController.onSendBackpressure(congested);
+            }
+        });
+    }
+
+    public ServerMessageHandler getMessageHandler() {
+        return messageHandler;
+    }
+
+    public TileStyle getTileStyle() {
+        return tileStyle;
+    }
+
+    public void setTileStyle(TileStyle tileStyle) {
+        this.tileStyle = tileStyle;
     }
 
     public void setCurrentUser(Long userId, String username) {
@@ -55,6 +77,7 @@ public class NavigationManager {
 
             // Регистрируем контроллер в обработчике сообщений
             messageHandler.setCurrentController(controller);
+            currentController = controller;
 
             // Обновляем сцену
             if (stage.getScene() == null) {
@@ -0,0 +1,254 @@
+package ru.itis.scrabble.network;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import ru.itis.scrabble.dto.MessageEnvelopeDTO;
+import ru.itis.scrabble.dto.NetworkMessageDTO;
+import ru.itis.scrabble.dto.PlacementsDTO;
+import ru.itis.scrabble.dto.TextDTO;
+import ru.itis.scrabble.dto.TilePlacementDTO;
+import ru.itis.scrabble.models.Board;
+import ru.itis.scrabble.models.Tile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Компактный двоичный кодек для частых сообщений (предпросмотр, ход, heartbeat, события).
+ * <p>
+ * Тело кадра {@code [4 байта длины][тело]} начинается с байта {@link #MARKER}, который не может
+ * начинать JSON, поэтому формат определяется по каждому кадру, а JSON и двоичные кадры
+ * могут идти в одном соединении вперемешку. Далее — порядковый номер {@link MessageType}
+ * и раскладка, зависящая от типа:
+ * <ul>
+ *     <li>TILE_PREVIEW, TURN_COMMIT: {@code varint n}, затем n раз {@code [ordinal Tile][varint x][varint y]};</li>
+ *     <li>остальные: {@code [код события]} (0 — нет, иначе номер в {@link #EVENTS} + 1)
+ *     и {@code varint (длина текста + 1)} с текстом в UTF-8 (0 — текста нет).</li>
+ * </ul>
+ * Сообщения, не укладывающиеся в эти раскладки, по-прежнему отправляются в JSON.
+ * </p>
+ */
+public final class BinaryCodec {
+    public static final byte MARKER = (byte) 0xB1;
+
+    private static final MessageType[] TYPES = MessageType.values();
+    private static final Tile[] TILES = Tile.values();
+    // Известные коды событий; новые добавлять только в конец
+    private static final String[] EVENTS = {
+            "HEARTBEAT_ACK", "PREVIEW_OK", "PREVIEW_INVALID", "MOVE_ACCEPTED", "MOVE_REJECTED",
+            "AUTH_ERROR"
+    };
+
+    private BinaryCodec() {}
+
+    public static boolean isBinary(byte[] data, int offset, int length) {
+        return length >= 2 && data[offset] == MARKER;
+    }
+
+    private static boolean hasPlacements(MessageType type) {
+        return type == MessageType.TILE_PREVIEW || type == MessageType.TURN_COMMIT;
+    }
+
+    /**
+     * @return true, если конверт можно закодировать двоично без потери данных.
+     */
+    public static boolean canEncode(MessageEnvelopeDTO msg) {
+        if (hasPlacements(msg.type())) {
+            return msg.payload() instanceof PlacementsDTO;
+        }
+        return (msg.payload() == null || msg.payload() instanceof TextDTO)
+                && (msg.event() == null || eventCode(msg.event()) > 0);
+    }
+
+    /**
+     * Кодирует конверт в готовый кадр. Вызывать только если {@link #canEncode} вернул true.
+     */
+    public static ByteBuffer encode(MessageEnvelopeDTO msg) {
+        if (hasPlacements(msg.type())) {
+            return encodePlacements(msg.type(), ((PlacementsDTO) msg.payload()).placements());
+        }
+        String text = msg.payload() instanceof TextDTO t ? t.message() : null;
+        return encodeEvent(msg.type(), msg.event(), text);
+    }
+
+    /**
+     * Кодирует команду клиента, если для ее типа и данных есть двоичная раскладка.
+     * @param payload {@link PlacementsDTO} или карта с ключом {@code placements}; для прочих типов не используется.
+     * @return кадр или null, если команду нужно отправить в JSON.
+     */
+    public static ByteBuffer tryEncodeCommand(MessageType type, Object payload) {
+        if (hasPlacements(type)) {
+            List<TilePlacementDTO> placements = placementsOf(payload);
+            return placements != null ? encodePlacements(type, placements) : null;
+        }
+        if (type == MessageType.HEARTBEAT || type == MessageType.GET_GAME_STATE) {
+            return encodeEvent(type, null, null);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<TilePlacementDTO> placementsOf(Object payload) {
+        if (payload instanceof PlacementsDTO dto) return dto.placements();
+        if (payload instanceof Map<?, ?> map && map.get("placements") instanceof List<?> list) {
+            for (Object item : list) {
+                if (!(item instanceof TilePlacementDTO)) return null;
+            }
+            return (List<TilePlacementDTO>) list;
+        }
+        return null;
+    }
+
+    public static ByteBuffer encodePlacements(MessageType type, List<TilePlacementDTO> placements) {
+        int size = 2 + varintSize(placements.size());
+        for (TilePlacementDTO p : placements) {
+            size += 1 + varintSize(p.x()) + varintSize(p.y());
+        }
+        ByteBuffer frame = header(size, type);
+        putVarint(frame, placements.size());
+        for (TilePlacementDTO p : placements) {
+            frame.put((byte) p.tile().ordinal());
+            putVarint(frame, p.x());
+            putVarint(frame, p.y());
+        }
+        return frame.flip();
+    }
+
+    public static ByteBuffer encodeEvent(MessageType type, String event, String text) {
+        byte[] utf8 = text != null ? text.getBytes(StandardCharsets.UTF_8) : null;
+        int textField = utf8 != null ? utf8.length + 1 : 0;
+        ByteBuffer frame = header(3 + varintSize(textField) + (utf8 != null ? utf8.length : 0), type);
+        frame.put((byte) (event != null ? eventCode(event) : 0));
+        putVarint(frame, textField);
+        if (utf8 != null) frame.put(utf8);
+        return frame.flip();
+    }
+
+    private static ByteBuffer header(int bodySize, MessageType type) {
+        ByteBuffer frame = ByteBuffer.allocate(4 + bodySize);
+        frame.putInt(bodySize);
+        frame.put(MARKER);
+        frame.put((byte) type.ordinal());
+        return frame;
+    }
+
+    private static int eventCode(String event) {
+        for (int i = 0; i < EVENTS.length; i++) {
+            if (EVENTS[i].equals(event)) return i + 1;
+        }
+        return 0;
+    }
+
+    // ---- Разбор ----
+
+    public static MessageType readType(byte[] data, int offset) throws IOException {
+        int ordinal = data[offset + 1] & 0xFF;
+        if (ordinal >= TYPES.length) {
+            throw new IOException("Неизвестный тип сообщения: " + ordinal);
+        }
+        return TYPES[ordinal];
+    }
+
+    /**
+     * Читает фишки из тела TILE_PREVIEW / TURN_COMMIT.
+     */
+    public static List<TilePlacementDTO> readPlacements(byte[] data, int offset, int length) throws IOException {
+        Reader in = new Reader(data, offset + 2, offset + length);
+        int count = in.varint();
+        if (count > Board.CELL_COUNT) {
+            throw new IOException("Слишком много фишек: " + count);
+        }
+        List<TilePlacementDTO> placements = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int tile = in.u8();
+            if (tile >= TILES.length) {
+                throw new IOException("Неизвестная фишка: " + tile);
+            }
+            placements.add(new TilePlacementDTO(TILES[tile], in.varint(), in.varint()));
+        }
+        return placements;
+    }
+
+    /**
+     * Разбирает событие (раскладка без фишек) в сообщение формата v2 для контроллеров клиента.
+     */
+    public static NetworkMessageDTO readEvent(byte[] data, int offset, int length) throws IOException {
+        MessageType type = readType(data, offset);
+        if (hasPlacements(type)) {
+            throw new IOException("Ожидалось событие, получен " + type);
+        }
+        Reader in = new Reader(data, offset + 2, offset + length);
+        int code = in.u8();
+        if (code > EVENTS.length) {
+            throw new IOException("Неизвестный код события: " + code);
+        }
+        int textField = in.varint();
+        ObjectNode body = null;
+        if (textField > 0) {
+            body = JsonNodeFactory.instance.objectNode().put("message", in.utf8(textField - 1));
+        }
+        // Пустой объект, чтобы сообщение без события и текста тоже считалось структурированным
+        if (code == 0 && body == null) {
+            body = JsonNodeFactory.instance.objectNode();
+        }
+        return new NetworkMessageDTO(type, null, "SERVER", code > 0 ? EVENTS[code - 1] : null, body);
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    /**
+     * Курсор по телу кадра с проверкой границ.
+     */
+    private static final class Reader {
+        private final byte[] data;
+        private final int limit;
+        private int pos;
+
+        Reader(byte[] data, int pos, int limit) {
+            this.data = data;
+            this.pos = pos;
+            this.limit = limit;
+        }
+
+        int u8() throws IOException {
+            if (pos >= limit) throw new IOException("Обрезанный двоичный кадр");
+            return data[pos++] & 0xFF;
+        }
+
+        int varint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = u8();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IOException("Слишком длинный varint");
+        }
+
+        String utf8(int length) throws IOException {
+            if (length < 0 || length > limit - pos) throw new IOException("Обрезанный двоичный кадр");
+            String s = new String(data, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return s;
+        }
+    }
+}
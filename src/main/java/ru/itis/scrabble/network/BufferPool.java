@@ -0,0 +1,166 @@
+package ru.itis.scrabble.network;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Общий пул прямых (direct) буферов для сетевого ввода-вывода: чтение кадров
+ * и закодированные исходящие кадры. Один пул используется всеми циклами селектора.
+ * <p>
+ * Буферы разбиты на классы размеров — степени двойки от {@link #MIN_BUFFER}
+ * до {@link #MAX_BUFFER}. Мелкие классы нарезаются из слэбов по {@link #SLAB_SIZE}
+ * байт, крупные выделяются по одному. Сокет читает и пишет прямые буферы без
+ * промежуточного копирования во временный буфер JDK. Пул хранит не больше
+ * {@link #RETAIN_BYTES_PER_CLASS} байт каждого класса, лишнее отдается сборщику мусора.
+ * </p>
+ * <p>
+ * С {@code -Dscrabble.bufferLeakDetection=true} каждый выданный буфер отслеживается:
+ * если {@link PooledBuffer} стал недостижим, не вернувшись в пул, в лог пишется место
+ * его выделения, а память возвращается в пул.
+ * </p>
+ */
+public final class BufferPool {
+    public static final int MIN_BUFFER = Integer.highestOneBit(Math.max(64, Integer.getInteger("scrabble.readBuffer.initial", 1024)));
+    // Верхняя граница буфера; кадр больше MAX_BUFFER - 4 считается ошибкой протокола
+    public static final int MAX_BUFFER = Math.max(MIN_BUFFER, ceilPowerOfTwo(Integer.getInteger("scrabble.readBuffer.max", 1 << 20)));
+    public static final int SLAB_SIZE = 256 * 1024;
+    private static final long RETAIN_BYTES_PER_CLASS = Long.getLong("scrabble.readBuffer.retainBytes", 4L << 20);
+    private static final boolean LEAK_DETECTION = Boolean.getBoolean("scrabble.bufferLeakDetection");
+    private static final Cleaner CLEANER = LEAK_DETECTION ? Cleaner.create() : null;
+
+    private final int minShift;
+    private final ArrayBlockingQueue<ByteBuffer>[] free;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder allocated = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder directBytes = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+
+    /**
+     * Снимок счетчиков пула для консоли сервера.
+     */
+    public record Stats(long acquired, long allocated, long released, long dropped,
+                        long pooledBytes, long directBytes, long leaks) {}
+
+    /**
+     * Состояние отслеживаемого буфера. Не ссылается на сам {@link PooledBuffer},
+     * иначе тот никогда не стал бы недостижимым.
+     */
+    final class LeakTracker implements Runnable {
+        private final ByteBuffer buffer;
+        private final Throwable origin;
+        volatile boolean released;
+
+        LeakTracker(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.origin = new Throwable("Буфер " + buffer.capacity() + " байт выделен здесь");
+        }
+
+        @Override
+        public void run() {
+            if (released) return;
+            leaks.increment();
+            System.err.println("Утечка буфера: PooledBuffer не возвращен в пул");
+            origin.printStackTrace();
+            recycle(buffer);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public BufferPool() {
+        this.minShift = Integer.numberOfTrailingZeros(MIN_BUFFER);
+        int classes = Integer.numberOfTrailingZeros(MAX_BUFFER) - minShift + 1;
+        this.free = new ArrayBlockingQueue[classes];
+        for (int i = 0; i < classes; i++) {
+            long size = (long) MIN_BUFFER << i;
+            int perSlab = (int) Math.max(1, SLAB_SIZE / size);
+            // Очередь вмещает хотя бы целый слэб, иначе нарезанные куски сразу терялись бы
+            free[i] = new ArrayBlockingQueue<>((int) Math.max(perSlab, RETAIN_BYTES_PER_CLASS / size));
+        }
+    }
+
+    /**
+     * @return буфер в режиме записи емкостью не меньше {@code minCapacity} (округляется до класса).
+     * @throws IllegalArgumentException если запрошено больше {@link #MAX_BUFFER}.
+     */
+    public PooledBuffer acquire(int minCapacity) {
+        if (minCapacity > MAX_BUFFER) {
+            throw new IllegalArgumentException("Буфер больше предела пула: " + minCapacity);
+        }
+        acquired.increment();
+        int sizeClass = sizeClass(minCapacity);
+        ByteBuffer buffer = free[sizeClass].poll();
+        if (buffer == null) {
+            buffer = allocate(sizeClass);
+        }
+        return new PooledBuffer(buffer, this, LEAK_DETECTION ? new LeakTracker(buffer) : null);
+    }
+
+    static Cleaner.Cleanable track(PooledBuffer pooled, LeakTracker tracker) {
+        return CLEANER.register(pooled, tracker);
+    }
+
+    /**
+     * Копирует готовый кадр (например, из кучи) в буфер пула.
+     * @return буфер в режиме чтения.
+     */
+    public PooledBuffer copyOf(ByteBuffer frame) {
+        PooledBuffer pooled = acquire(frame.remaining());
+        pooled.buffer().put(frame.duplicate()).flip();
+        return pooled;
+    }
+
+    /**
+     * Возвращает память буфера в пул. Вызывается из {@link PooledBuffer#release()}.
+     */
+    void recycle(ByteBuffer buffer) {
+        buffer.clear();
+        if (free[Integer.numberOfTrailingZeros(buffer.capacity()) - minShift].offer(buffer)) {
+            released.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Выделяет прямой буфер класса: мелкие классы — нарезкой нового слэба,
+     * лишние куски которого сразу попадают в свободный список.
+     */
+    private ByteBuffer allocate(int sizeClass) {
+        int size = MIN_BUFFER << sizeClass;
+        allocated.increment();
+        if (size >= SLAB_SIZE) {
+            directBytes.add(size);
+            return ByteBuffer.allocateDirect(size);
+        }
+        ByteBuffer slab = ByteBuffer.allocateDirect(SLAB_SIZE);
+        directBytes.add(SLAB_SIZE);
+        for (int offset = size; offset < SLAB_SIZE; offset += size) {
+            if (!free[sizeClass].offer(slab.slice(offset, size))) break;
+        }
+        return slab.slice(0, size);
+    }
+
+    public Stats stats() {
+        long pooled = 0;
+        for (int i = 0; i < free.length; i++) {
+            pooled += (long) free[i].size() * (MIN_BUFFER << i);
+        }
+        return new Stats(acquired.sum(), allocated.sum(), released.sum(), dropped.sum(),
+                pooled, directBytes.sum(), leaks.sum());
+    }
+
+    private int sizeClass(int capacity) {
+        if (capacity <= MIN_BUFFER) return 0;
+        return Integer.numberOfTrailingZeros(ceilPowerOfTwo(capacity)) - minShift;
+    }
+
+    private static int ceilPowerOfTwo(int value) {
+        int high = Integer.highestOneBit(value);
+        return high == value ? value : high << 1;
+    }
+}
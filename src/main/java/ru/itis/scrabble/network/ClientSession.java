@@ -1,47 +1,280 @@
 package ru.itis.scrabble.network;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import ru.itis.scrabble.dto.MessageEnvelopeDTO;
 import ru.itis.scrabble.dto.NetworkMessageDTO;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ClientSession {
+    // Максимум кадров в очереди на отправку; медленный клиент сверх лимита отключается
+    private static final int MAX_OUTBOUND_FRAMES = 256;
+
     private final SocketChannel channel;
-    private final ByteBuffer readBuffer;
+    // Буфер чтения из общего пула; null, пока у сессии нет недочитанного кадра и она простаивает
+    private PooledBuffer readBuffer;
+    private long lastReadNanos;
+    // Чтение сокета приостановлено, пока полоса обработки перегружена; только поток селектора
+    private boolean readPaused;
     private final String sessionId;
-    private Long userId;
-    private String username;
-    private int roomId = -1; // -1 означает, что игрок еще не в комнате
+    private final SelectorLoop loop;
+    private final Queue<Outbound> outbound = new ArrayBlockingQueue<>(MAX_OUTBOUND_FRAMES);
+    private final AtomicBoolean writeScheduled = new AtomicBoolean(false);
+    // Пишутся полосами обработки пакетов, читаются селектором и акторами комнат
+    private volatile Long userId;
+    private volatile String username;
+    private volatile int roomId = -1; // -1 означает, что игрок еще не в комнате
+    // Версия протокола исходящих сообщений; v2 включается, если клиент прислал AUTH в формате v2
+    private volatile int protocolVersion = 1;
+    // Клиент прислал двоичный кадр: поддерживаемые ответы тоже уходят двоично (см. BinaryCodec)
+    private volatile boolean binaryCodec;
+    // Создается, когда клиент объявил флагом в заголовке кадра, что принимает сжатые кадры
+    private volatile FrameCompressor compressor;
+    // Последний непроверенный предпросмотр и ограничитель частоты проверок
+    private final PreviewGate previewGate = new PreviewGate();
+
+    // Форматы кадра для рассылки: индекс в массиве уже закодированных кадров
+    private static final int FORMAT_V1 = 0;
+    private static final int FORMAT_V2 = 1;
+    private static final int FORMAT_BINARY = 2;
 
     private static final ObjectMapper mapper = new ObjectMapper();
 
-    public ClientSession(SocketChannel channel) {
+    /**
+     * Кадр в очереди отправки: собственная позиция записи и ссылка на буфер пула.
+     */
+    private record Outbound(ByteBuffer view, PooledBuffer owner) {}
+
+    ClientSession(SocketChannel channel, SelectorLoop loop) {
         this.channel = channel;
-        this.readBuffer = ByteBuffer.allocate(16384);
+        this.loop = loop;
         this.sessionId = UUID.randomUUID().toString();
     }
 
     /**
-     * Отправка сообщения по протоколу [4 байта длины] + [JSON]
+     * Отправка сообщения по протоколу [4 байта длины] + [JSON].
+     * Кадр сериализуется сразу в прямой буфер пула и только ставится в очередь,
+     * запись в сокет выполняет поток селектора.
      */
     public void sendMessage(NetworkMessageDTO msg) {
         try {
-            byte[] body = mapper.writeValueAsBytes(msg);
-            ByteBuffer buffer = ByteBuffer.allocate(4 + body.length);
-            buffer.putInt(body.length);
-            buffer.put(body);
-            buffer.flip();
-
-            while (buffer.hasRemaining()) {
-                channel.write(buffer);
-            }
+            enqueue(compress(ProtocolUtils.encodePooled(msg, mapper, pool())));
+        } catch (IOException e) {
+            System.err.println("Ошибка отправки сообщения сессии " + sessionId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Отправка сообщения в формате, согласованном с клиентом (двоичный, v2 или прежний v1).
+     */
+    public void send(MessageEnvelopeDTO msg) {
+        try {
+            enqueue(compress(encode(formatFor(msg), msg, pool())));
         } catch (IOException e) {
             System.err.println("Ошибка отправки сообщения сессии " + sessionId + ": " + e.getMessage());
         }
     }
 
+    private int formatFor(MessageEnvelopeDTO msg) {
+        if (binaryCodec && BinaryCodec.canEncode(msg)) return FORMAT_BINARY;
+        return protocolVersion >= MessageEnvelopeDTO.VERSION ? FORMAT_V2 : FORMAT_V1;
+    }
+
+    private static PooledBuffer encode(int format, MessageEnvelopeDTO msg, BufferPool pool) throws IOException {
+        return switch (format) {
+            case FORMAT_BINARY -> pool.copyOf(BinaryCodec.encode(msg));
+            case FORMAT_V2 -> ProtocolUtils.encodePooled(msg, mapper, pool);
+            default -> ProtocolUtils.encodePooled(ProtocolUtils.toLegacy(msg, mapper), mapper, pool);
+        };
+    }
+
+    private BufferPool pool() {
+        return loop.getBufferPool();
+    }
+
+    /**
+     * Сжимает кадр, если клиент принимает сжатые кадры и кадр достаточно велик.
+     */
+    public ByteBuffer compress(ByteBuffer frame) {
+        FrameCompressor c = compressor;
+        return c != null ? c.compress(frame) : frame;
+    }
+
+    /**
+     * Сжимает кадр пула. Забирает ссылку на исходный кадр: если сжатие дало выигрыш,
+     * исходный кадр возвращается в пул, а сжатый записывается в новый буфер пула.
+     */
+    PooledBuffer compress(PooledBuffer frame) {
+        FrameCompressor c = compressor;
+        return c != null ? c.compress(frame, pool()) : frame;
+    }
+
+    /**
+     * Рассылка конверта нескольким сессиям: кадр кодируется (и при необходимости сжимается)
+     * не более одного раза на каждый формат среди получателей. Все очереди ссылаются
+     * на один и тот же буфер пула, он возвращается в пул после записи последней сессией.
+     */
+    public static void broadcast(Collection<ClientSession> sessions, MessageEnvelopeDTO msg) {
+        if (sessions.isEmpty()) return;
+        BufferPool pool = sessions.iterator().next().pool();
+        // Четные ячейки — исходные кадры формата, нечетные — их сжатые варианты
+        PooledBuffer[] frames = new PooledBuffer[6];
+        try {
+            for (ClientSession session : sessions) {
+                int format = session.formatFor(msg);
+                int slot = format * 2;
+                if (frames[slot] == null) frames[slot] = encode(format, msg, pool);
+                if (session.compressor != null) {
+                    if (frames[slot + 1] == null) {
+                        frames[slot + 1] = session.compress(frames[slot].retain());
+                    }
+                    slot++;
+                }
+                session.enqueue(frames[slot].retain());
+            }
+        } catch (IOException e) {
+            System.err.println("Ошибка сериализации рассылки " + msg.type() + ": " + e.getMessage());
+        } finally {
+            for (PooledBuffer frame : frames) {
+                if (frame != null) frame.release();
+            }
+        }
+    }
+
+    /**
+     * Рассылка одного сообщения нескольким сессиям (например, SYNC_STATE всем в комнате).
+     * Кадр сериализуется один раз, каждая сессия получает свою ссылку на буфер пула
+     * и собственную позицию записи.
+     */
+    public static void broadcast(Collection<ClientSession> sessions, NetworkMessageDTO msg) {
+        if (sessions.isEmpty()) return;
+
+        PooledBuffer frame;
+        try {
+            frame = ProtocolUtils.encodePooled(msg, mapper, sessions.iterator().next().pool());
+        } catch (IOException e) {
+            System.err.println("Ошибка сериализации рассылки " + msg.type() + ": " + e.getMessage());
+            return;
+        }
+
+        PooledBuffer compressed = null;
+        for (ClientSession session : sessions) {
+            if (session.compressor != null) {
+                if (compressed == null) compressed = session.compress(frame.retain());
+                session.enqueue(compressed.retain());
+            } else {
+                session.enqueue(frame.retain());
+            }
+        }
+        frame.release();
+        if (compressed != null) compressed.release();
+    }
+
+    /**
+     * Ставит готовый кадр (например, собранный в куче) в очередь отправки,
+     * предварительно скопировав его в прямой буфер пула.
+     * Безопасно вызывать из любого потока.
+     */
+    public void enqueue(ByteBuffer frame) {
+        if (!channel.isOpen()) return;
+        enqueue(pool().copyOf(frame));
+    }
+
+    /**
+     * Ставит кадр пула в очередь отправки и будит селектор. Забирает одну ссылку на кадр:
+     * она отпускается после записи в сокет или если кадр не будет отправлен.
+     * Безопасно вызывать из любого потока.
+     */
+    public void enqueue(PooledBuffer frame) {
+        if (!channel.isOpen()) {
+            frame.release();
+            return;
+        }
+
+        // У каждой очереди своя позиция записи в общем буфере
+        if (!outbound.offer(new Outbound(frame.buffer().duplicate(), frame))) {
+            frame.release();
+            System.err.println("Очередь отправки переполнена, сессия " + sessionId + " будет отключена");
+            loop.requestClose(this);
+            return;
+        }
+        if (!channel.isOpen()) {
+            // Соединение закрылось, пока кадр ставился в очередь: очередь уже могли очистить
+            drainOutbound();
+            return;
+        }
+        if (writeScheduled.compareAndSet(false, true)) {
+            loop.requestWrite(this);
+        }
+    }
+
+    /**
+     * Записывает в канал накопленные кадры пачками (gathering write).
+     * Вызывается только потоком селектора.
+     * @return true, если очередь опустошена и интерес к OP_WRITE можно снять.
+     */
+    boolean flush() throws IOException {
+        ByteBuffer[] batch = loop.writeBatch();
+        while (!outbound.isEmpty()) {
+            int count = 0;
+            long pending = 0;
+            for (Outbound frame : outbound) {
+                batch[count++] = frame.view();
+                pending += frame.view().remaining();
+                if (count == batch.length) break;
+            }
+            long written = channel.write(batch, 0, count);
+            Arrays.fill(batch, 0, count, null);
+
+            Outbound frame;
+            while ((frame = outbound.peek()) != null && !frame.view().hasRemaining()) {
+                outbound.poll();
+                frame.owner().release();
+            }
+            if (written < pending) {
+                return false; // сокетный буфер заполнен, ждем следующего OP_WRITE
+            }
+        }
+
+        writeScheduled.set(false);
+        // Кадр мог появиться между проверкой очереди и сбросом флага
+        return outbound.isEmpty() || !writeScheduled.compareAndSet(false, true);
+    }
+
+    /**
+     * Возвращает в пул кадры, которые уже не будут отправлены, и освобождает ресурсы сжатия.
+     * Вызывается после закрытия канала.
+     */
+    void clearOutbound() {
+        drainOutbound();
+        FrameCompressor c = compressor;
+        if (c != null) c.close();
+    }
+
+    private void drainOutbound() {
+        Outbound frame;
+        while ((frame = outbound.poll()) != null) {
+            frame.owner().release();
+        }
+    }
+
+    /**
+     * Включает сжатие для соединения. Вызывается потоком селектора.
+     */
+    FrameCompressor enableCompression() {
+        if (compressor == null) {
+            compressor = new FrameCompressor();
+        }
+        return compressor;
+    }
+
     public SocketChannel getChannel() { return channel; }
 
     // Геттеры и сеттеры
@@ -51,6 +284,69 @@ public class ClientSession {
     public void setUsername(String username) { this.username = username; }
     public int getRoomId() { return roomId; }
     public void setRoomId(int roomId) { this.roomId = roomId; }
-    public ByteBuffer getReadBuffer() { return readBuffer; }
+    public int getProtocolVersion() { return protocolVersion; }
+    public void setProtocolVersion(int protocolVersion) { this.protocolVersion = protocolVersion; }
+    public boolean isBinaryCodec() { return binaryCodec; }
+    public void setBinaryCodec(boolean binaryCodec) { this.binaryCodec = binaryCodec; }
+    public boolean isCompressionEnabled() { return compressor != null; }
+    public PreviewGate getPreviewGate() { return previewGate; }
+    /**
+     * Буфер чтения в режиме записи; при необходимости берется из пула.
+     * Вызывается только потоком селектора.
+     */
+    ByteBuffer acquireReadBuffer(BufferPool pool) {
+        if (readBuffer == null) {
+            readBuffer = pool.acquire(BufferPool.MIN_BUFFER);
+        }
+        lastReadNanos = System.nanoTime();
+        return readBuffer.buffer();
+    }
+
+    /**
+     * Переносит недочитанные байты в буфер емкостью не меньше {@code capacity}.
+     * Текущий буфер должен быть в режиме чтения; новый возвращается в режиме записи.
+     */
+    ByteBuffer growReadBuffer(BufferPool pool, int capacity) {
+        PooledBuffer grown = pool.acquire(capacity);
+        grown.buffer().put(readBuffer.buffer());
+        readBuffer.release();
+        readBuffer = grown;
+        return grown.buffer();
+    }
+
+    /**
+     * Отдает буфер чтения в пул, если в нем нет данных. Минимальный буфер
+     * остается у сессии, пока она не простоит дольше {@code idleNanos}.
+     */
+    void trimReadBuffer(long idleNanos) {
+        if (readBuffer == null || readBuffer.buffer().position() != 0) return;
+        if (readBuffer.buffer().capacity() > BufferPool.MIN_BUFFER
+                || System.nanoTime() - lastReadNanos >= idleNanos) {
+            readBuffer.release();
+            readBuffer = null;
+        }
+    }
+
+    boolean isReadPaused() {
+        return readPaused;
+    }
+
+    void setReadPaused(boolean readPaused) {
+        this.readPaused = readPaused;
+    }
+
+    /**
+     * Возобновляет чтение после разгрузки полосы обработки. Безопасно вызывать из любого потока.
+     */
+    void resumeReads() {
+        loop.requestResume(this);
+    }
+
+    void releaseReadBuffer() {
+        if (readBuffer != null) {
+            readBuffer.release();
+            readBuffer = null;
+        }
+    }
     public String getSessionId() { return sessionId; }
-}
\ No newline at end of file
+}
@@ -0,0 +1,181 @@
+package ru.itis.scrabble.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Сжатие кадров одного соединения (Deflate с общим предустановленным словарем).
+ * <p>
+ * Сжатый кадр помечается флагом {@link ProtocolUtils#FLAG_COMPRESSED} в заголовке длины,
+ * а его тело — {@code [4 байта исходной длины][deflate]}. Каждый кадр сжимается
+ * независимо (контекст сбрасывается и снова получает словарь), поэтому кадр,
+ * сжатый для одной сессии, можно разослать и другим. Deflater, Inflater и
+ * рабочие массивы создаются один раз на соединение и переиспользуются.
+ * </p>
+ */
+public final class FrameCompressor {
+    // Кадры меньше порога не сжимаются: выигрыш не окупает заголовок и время
+    public static final int DEFAULT_THRESHOLD = Integer.getInteger("scrabble.compressThreshold", 512);
+
+    /**
+     * Частые фрагменты JSON (SYNC_STATE, SYNC_DELTA, списки комнат, статистика).
+     * Самые частые стоят в конце: до них ближе всего, и ссылки на них короче.
+     * Менять словарь можно только одновременно на сервере и клиенте.
+     */
+    private static final byte[] DICTIONARY = (
+            "{\"roomId\":\"port\":\"playerCount\":\"maxPlayers\":\"status\":\"WAITING\","
+            + "\"totalWins\":\"totalLoses\":\"totalGames\":\"styleId\":"
+            + "\"moverId\":\"placed\":\"moverScore\":\"bagCount\":\"currentPlayerId\":"
+            + "\"message\":\"event\":\"senderId\":\"SERVER\"}"
+            + "{\"v\":2,\"type\":\"SYNC_STATE\",\"payload\":{\"board\":{\"placedCount\":\"empty\":false,\"boardCells\":[["
+            + "\"bag\":{\"empty\":false,\"remainingCount\":\"players\":["
+            + "{\"userId\":\"username\":\"score\":0,\"lastPoints\":0,\"rack\":[\"bot\":false,\"connected\":true},"
+            + "\"version\":\"gameOver\":false,\"currentPlayer\":\"localPlayer\":"
+            + "{\"tile\":\"x\":\"y\":},"
+            + "{\"cellType\":\"DLS\",\"tile\":null},{\"cellType\":\"TLS\",\"tile\":null},"
+            + "{\"cellType\":\"DWS\",\"tile\":null},{\"cellType\":\"TWS\",\"tile\":null},"
+            + "{\"cellType\":\"NONE\",\"tile\":null},{\"cellType\":\"NONE\",\"tile\":null},"
+    ).getBytes(StandardCharsets.UTF_8);
+
+    private final int threshold;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final Inflater inflater = new Inflater();
+    private byte[] deflateBuffer = new byte[4096];
+    private byte[] inflateBuffer = new byte[4096];
+    private boolean closed;
+
+    public FrameCompressor() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    public FrameCompressor(int threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Сжимает готовый кадр {@code [длина][тело]}, если он не меньше порога и сжатие дает выигрыш.
+     * @return новый сжатый кадр в куче или исходный кадр без изменений.
+     */
+    public ByteBuffer compress(ByteBuffer frame) {
+        synchronized (deflater) {
+            int size = deflate(frame);
+            if (size < 0) return frame;
+            return putCompressed(ByteBuffer.allocate(8 + size), frame, size).flip();
+        }
+    }
+
+    /**
+     * Сжимает кадр пула сразу в буфер того же пула: сжатые байты из рабочего массива
+     * компрессора копируются один раз, без промежуточного буфера в куче.
+     * Забирает ссылку на исходный кадр: если сжатие дало выигрыш, он возвращается в пул.
+     * @return сжатый кадр в режиме чтения или исходный кадр без изменений.
+     */
+    public PooledBuffer compress(PooledBuffer frame, BufferPool pool) {
+        PooledBuffer compressed;
+        synchronized (deflater) {
+            int size = deflate(frame.buffer());
+            if (size < 0) return frame;
+            compressed = pool.acquire(8 + size);
+            putCompressed(compressed.buffer(), frame.buffer(), size).flip();
+        }
+        frame.release();
+        return compressed;
+    }
+
+    /**
+     * Сжимает тело кадра в {@link #deflateBuffer}. Вызывать под замком {@code deflater}.
+     * @return размер сжатых данных или -1, если кадр нужно отправить без сжатия.
+     */
+    private int deflate(ByteBuffer frame) {
+        int length = frame.getInt(frame.position()) & ProtocolUtils.LENGTH_MASK;
+        // Соединение уже закрыто, а рассылка еще идет: кадр все равно не будет отправлен
+        if (length < threshold || closed) return -1;
+
+        deflater.reset();
+        deflater.setDictionary(DICTIONARY);
+        // Тело читается через срез: кадр может лежать и в куче, и в прямом буфере пула
+        deflater.setInput(frame.slice(frame.position() + 4, length));
+        deflater.finish();
+
+        int size = 0;
+        while (!deflater.finished()) {
+            if (size == deflateBuffer.length) {
+                // Несжимаемые данные: дальше не пытаемся
+                if (size >= length) return -1;
+                deflateBuffer = Arrays.copyOf(deflateBuffer, deflateBuffer.length * 2);
+            }
+            size += deflater.deflate(deflateBuffer, size, deflateBuffer.length - size);
+        }
+        return size + 4 < length ? size : -1;
+    }
+
+    /**
+     * Записывает сжатый кадр {@code [длина | FLAG_COMPRESSED][исходная длина][deflate]} в {@code out}.
+     */
+    private ByteBuffer putCompressed(ByteBuffer out, ByteBuffer frame, int size) {
+        out.putInt((size + 4) | ProtocolUtils.FLAG_COMPRESSED);
+        out.putInt(frame.getInt(frame.position()) & ProtocolUtils.LENGTH_MASK);
+        out.put(deflateBuffer, 0, size);
+        return out;
+    }
+
+    /**
+     * Распаковывает тело сжатого кадра. Результат лежит в {@link #inflated()} и
+     * действителен до следующего вызова. Вызывать из одного потока (потока чтения соединения).
+     * @return длина распакованного тела.
+     */
+    public int inflate(byte[] data, int offset, int length, int maxLength) throws IOException {
+        if (length < 4) throw new IOException("Обрезанный сжатый кадр");
+        int rawLength = (data[offset] & 0xFF) << 24 | (data[offset + 1] & 0xFF) << 16
+                | (data[offset + 2] & 0xFF) << 8 | (data[offset + 3] & 0xFF);
+        if (rawLength <= 0 || rawLength > maxLength) {
+            throw new IOException("Недопустимая длина распакованного кадра: " + rawLength);
+        }
+        if (inflateBuffer.length < rawLength) {
+            inflateBuffer = new byte[Math.max(rawLength, inflateBuffer.length * 2)];
+        }
+
+        inflater.reset();
+        inflater.setInput(data, offset + 4, length - 4);
+        try {
+            int size = 0;
+            while (size < rawLength) {
+                int n = inflater.inflate(inflateBuffer, size, rawLength - size);
+                if (n == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(DICTIONARY);
+                    } else if (inflater.finished() || inflater.needsInput()) {
+                        break;
+                    }
+                }
+                size += n;
+            }
+            if (size != rawLength) {
+                throw new IOException("Длина распакованного кадра не совпала: " + size + " из " + rawLength);
+            }
+            return size;
+        } catch (DataFormatException e) {
+            throw new IOException("Поврежденный сжатый кадр: " + e.getMessage(), e);
+        }
+    }
+
+    public byte[] inflated() {
+        return inflateBuffer;
+    }
+
+    /**
+     * Освобождает нативные ресурсы zlib. Вызывается при закрытии соединения.
+     */
+    public void close() {
+        synchronized (deflater) {
+            closed = true;
+            deflater.end();
+        }
+        inflater.end();
+    }
+}
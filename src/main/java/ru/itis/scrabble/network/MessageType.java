@@ -41,6 +41,9 @@ public enum MessageType {
     PLAY_AGAIN_REQUEST,
     LEAVE_ROOM_AFTER_GAME,
     CREATE_ROOM,
-    CANCEL_WAITING
+    CANCEL_WAITING,
+
+    // Versioned state sync: SYNC_STATE is the full snapshot, SYNC_DELTA carries one applied move
+    SYNC_DELTA
 }
 
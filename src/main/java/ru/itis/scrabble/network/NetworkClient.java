@@ -1,5 +1,6 @@
 package ru.itis.scrabble.network;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import javafx.application.Platform;
@@ -8,27 +9,67 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
+import ru.itis.scrabble.dto.MessageEnvelopeDTO;
 import ru.itis.scrabble.dto.NetworkMessageDTO;
 
+/**
+ * Сетевой клиент: отдельный поток чтения и отдельный поток записи.
+ * <p>
+ * Отправка только кодирует кадр и кладет его в ограниченную очередь, поэтому
+ * поток JavaFX никогда не ждет сеть. Поток записи забирает из очереди
+ * сразу несколько кадров и отправляет их одной «собирающей» записью.
+ * Кадры кодируются сразу в прямые буферы {@link BufferPool} клиента и возвращаются
+ * в пул после записи; буфер чтения тоже берется из пула.
+ * Когда очередь заполняется, слушатель получает сигнал о перегрузке.
+ * </p>
+ * <p>
+ * Структурированные команды отправляются конвертом v2 (payload — JSON-поддерево);
+ * первая такая команда, AUTH, переключает сервер на ответы v2. Для старого сервера
+ * протокол можно ограничить v1 через {@code -Dscrabble.protocol=1}.
+ * С {@code -Dscrabble.codec=binary} команды, для которых есть раскладка в {@link BinaryCodec},
+ * отправляются двоично, и сервер отвечает так же; входящие кадры разбираются по первому байту.
+ * С {@code -Dscrabble.compression=true} каждый исходящий кадр несет флаг
+ * {@link ProtocolUtils#FLAG_ACCEPTS_COMPRESSED}, и сервер сжимает крупные ответы ({@link FrameCompressor}).
+ * </p>
+ */
 public class NetworkClient {
     private SocketChannel channel;
-    private final ByteBuffer readBuffer;
+    private final BufferPool bufferPool = new BufferPool();
+    private PooledBuffer readBuffer; // только поток чтения; растет под крупный кадр и затем сжимается обратно
     private Consumer<NetworkMessageDTO> messageHandler; // Теперь принимает dto.NetworkMessage
-    private ExecutorService executor;
+    private Consumer<Boolean> backpressureListener;
+    private Thread readerThread;
+    private Thread writerThread;
+    private final BlockingQueue<PooledBuffer> sendQueue = new ArrayBlockingQueue<>(SEND_QUEUE_CAPACITY);
+    private final AtomicBoolean congested = new AtomicBoolean(false);
     private final ObjectMapper objectMapper;
-    private boolean connected;
+    private final FrameCompressor compressor = COMPRESSION ? new FrameCompressor() : null;
+    private volatile boolean connected;
     private String host;
     private int port;
     private static final int DEFAULT_READ_BUFFER = 64 * 1024; // 64KB
-    // Maximum message we can hold in the read buffer (reserve 4 bytes for length)
-    private static final int MAX_MESSAGE_SIZE = DEFAULT_READ_BUFFER - 4;
+    // Предел кадра тот же, что и на сервере (reserve 4 bytes for length)
+    private static final int MAX_MESSAGE_SIZE = BufferPool.MAX_BUFFER - 4;
+    // Очередь отправки: при заполнении на 3/4 сообщаем о перегрузке, при опустошении до 1/4 — о ее снятии
+    private static final int SEND_QUEUE_CAPACITY = 256;
+    private static final int HIGH_WATERMARK = SEND_QUEUE_CAPACITY * 3 / 4;
+    private static final int LOW_WATERMARK = SEND_QUEUE_CAPACITY / 4;
+    // Сколько кадров отправляется одной записью
+    private static final int MAX_GATHER = 16;
+    private static final int PROTOCOL_VERSION = Integer.getInteger("scrabble.protocol", MessageEnvelopeDTO.VERSION);
+    // -Dscrabble.codec=binary: частые команды (предпросмотр, ход, heartbeat) уходят двоичными кадрами
+    private static final boolean BINARY_CODEC = "binary".equalsIgnoreCase(System.getProperty("scrabble.codec"));
+    // -Dscrabble.compression=true: крупные кадры (SYNC_STATE и т.п.) приходят сжатыми
+    private static final boolean COMPRESSION = Boolean.getBoolean("scrabble.compression");
 
     public NetworkClient() {
         // Увеличим буфер для больших JSON (состояние игрового поля)
-        this.readBuffer = ByteBuffer.allocate(DEFAULT_READ_BUFFER);
+        this.readBuffer = bufferPool.acquire(DEFAULT_READ_BUFFER);
         this.objectMapper = new ObjectMapper();
         // Be tolerant to small DTO changes from server
         this.objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
@@ -52,17 +93,27 @@ public class NetworkClient {
             }
         }
 
-        // Switch to blocking mode for reliable blocking reads/writes on the background thread
+        // Switch to blocking mode for reliable blocking reads/writes on the background threads
         channel.configureBlocking(true);
+        channel.socket().setTcpNoDelay(true);
 
-        // Create executor per-connection so reconnects work correctly
-        this.executor = Executors.newSingleThreadExecutor();
-
+        // Threads are created per-connection so reconnects work correctly
+        drainSendQueue();
+        readBuffer.buffer().clear();
+        congested.set(false);
         connected = true;
-        startMessageReader();
+        readerThread = startThread("network-reader", this::readLoop);
+        writerThread = startThread("network-writer", this::writeLoop);
         System.out.println("Подключено к серверу по протоколу [Length+JSON] " + host + ":" + port);
     }
 
+    private static Thread startThread(String name, Runnable loop) {
+        Thread thread = new Thread(loop, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
     public void disconnect() {
         connected = false;
         try {
@@ -70,18 +121,28 @@ public class NetworkClient {
         } catch (IOException e) {
             System.err.println("Ошибка при закрытии канала: " + e.getMessage());
         }
-        if (executor != null) {
-            executor.shutdownNow();
-            executor = null;
+        if (readerThread != null) {
+            readerThread.interrupt();
+            readerThread = null;
+        }
+        if (writerThread != null) {
+            writerThread.interrupt();
+            writerThread = null;
+        }
+        drainSendQueue();
+    }
+
+    private void drainSendQueue() {
+        PooledBuffer frame;
+        while ((frame = sendQueue.poll()) != null) {
+            frame.release();
         }
     }
 
     /**
      * Исправлено: Отправка по протоколу [4 байта длины] + [JSON]
      */
-    public void sendMessage(String type, String payload) {
-        if (!isConnected()) return;
-
+    public boolean sendMessage(String type, String payload) {
         MessageType mt;
         try {
             mt = MessageType.valueOf(type);
@@ -89,94 +150,178 @@ public class NetworkClient {
             mt = MessageType.GAME_EVENT;
         }
 
-        sendMessage(mt, payload);
+        return sendMessage(mt, payload);
     }
 
-    public void sendMessage(MessageType mt, String payload) {
-        if (!isConnected()) return;
+    /**
+     * Кодирует сообщение и ставит кадр в очередь отправки. Не блокирует вызывающий поток.
+     * @return false, если клиент не подключен или очередь отправки переполнена (сообщение не отправлено).
+     */
+    public boolean sendMessage(MessageType mt, String payload) {
+        if (!isConnected()) return false;
         try {
             NetworkMessageDTO message = new NetworkMessageDTO(mt, payload, null);
-            byte[] body = objectMapper.writeValueAsBytes(message);
-
-            // Выделяем память: 4 байта под int + длина тела
-            ByteBuffer writeBuffer = ByteBuffer.allocate(4 + body.length);
-            writeBuffer.putInt(body.length); // Первые 4 байта — длина
-            writeBuffer.put(body);           // Само сообщение
-            writeBuffer.flip();
-
-            synchronized (this) {
-                while (writeBuffer.hasRemaining()) {
-                    try {
-                        channel.write(writeBuffer);
-                    } catch (IOException e) {
-                        handleSystemError("Ошибка записи в канал: " + e.getMessage());
-                        break;
-                    }
-                }
-            }
+            return enqueue(mt, ProtocolUtils.encodePooled(message, objectMapper, bufferPool));
         } catch (IOException e) {
             handleSystemError("Ошибка сериализации сообщения: " + e.getMessage());
+            return false;
         }
     }
 
     /**
-     * Send asynchronously using the client's executor to avoid blocking caller threads (e.g., JavaFX thread).
+     * Отправляет объект как payload конверта v2, без промежуточной JSON-строки.
+     * Если протокол ограничен v1, объект сериализуется в строку, как раньше.
      */
-    public void sendMessageAsync(String type, String payload) {
+    public boolean sendStructured(String type, Object payload) {
         MessageType mt;
         try {
             mt = MessageType.valueOf(type);
         } catch (IllegalArgumentException ex) {
             mt = MessageType.GAME_EVENT;
         }
-        sendMessageAsync(mt, payload);
+        if (!isConnected()) return false;
+        try {
+            if (BINARY_CODEC) {
+                ByteBuffer frame = BinaryCodec.tryEncodeCommand(mt, payload);
+                if (frame != null) return enqueue(mt, bufferPool.copyOf(frame));
+            }
+            if (PROTOCOL_VERSION < MessageEnvelopeDTO.VERSION) {
+                return sendMessage(mt, objectMapper.writeValueAsString(payload));
+            }
+            return enqueue(mt, ProtocolUtils.encodePooled(MessageEnvelopeDTO.of(mt, null, payload, null), objectMapper, bufferPool));
+        } catch (IOException e) {
+            handleSystemError("Ошибка сериализации сообщения: " + e.getMessage());
+            return false;
+        }
     }
 
-    public void sendMessageAsync(MessageType mt, String payload) {
-        if (executor == null || executor.isShutdown() || !isConnected()) {
-            // fallback to synchronous send to not drop messages when executor unavailable
-            sendMessage(mt, payload);
-            return;
+    /**
+     * Забирает ссылку на кадр пула: после записи в сокет поток записи вернет его в пул.
+     */
+    private boolean enqueue(MessageType mt, PooledBuffer frame) {
+        if (compressor != null) {
+            frame = compressor.compress(frame, bufferPool);
+            ProtocolUtils.markAcceptsCompressed(frame.buffer());
+        }
+        if (!sendQueue.offer(frame)) {
+            frame.release();
+            System.err.println("Очередь отправки переполнена, сообщение " + mt + " отброшено");
+            signalBackpressure(true);
+            return false;
+        }
+        if (sendQueue.size() >= HIGH_WATERMARK) {
+            signalBackpressure(true);
+        }
+        return true;
+    }
+
+    /**
+     * Отправка теперь всегда асинхронная: оставлено для совместимости с контроллерами.
+     */
+    public boolean sendMessageAsync(String type, String payload) {
+        return sendMessage(type, payload);
+    }
+
+    public boolean sendMessageAsync(MessageType mt, String payload) {
+        return sendMessage(mt, payload);
+    }
+
+    /**
+     * Поток записи: ждет первый кадр, добирает уже накопившиеся и пишет их в сокет одним вызовом.
+     */
+    private void writeLoop() {
+        PooledBuffer[] frames = new PooledBuffer[MAX_GATHER];
+        ByteBuffer[] batch = new ByteBuffer[MAX_GATHER];
+        int count = 0;
+        try {
+            while (connected && channel.isOpen()) {
+                frames[0] = sendQueue.take();
+                count = 1;
+                PooledBuffer next;
+                while (count < MAX_GATHER && (next = sendQueue.poll()) != null) {
+                    frames[count++] = next;
+                }
+                for (int i = 0; i < count; i++) {
+                    batch[i] = frames[i].buffer();
+                }
+
+                while (batch[count - 1].hasRemaining()) {
+                    channel.write(batch, 0, count);
+                }
+                releaseBatch(frames, count);
+                Arrays.fill(batch, 0, count, null);
+                count = 0;
+
+                if (sendQueue.size() <= LOW_WATERMARK) {
+                    signalBackpressure(false);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            if (connected) {
+                handleSystemError("Ошибка записи в канал: " + e.getMessage());
+            }
+        } finally {
+            releaseBatch(frames, count);
+        }
+    }
+
+    private static void releaseBatch(PooledBuffer[] frames, int count) {
+        for (int i = 0; i < count; i++) {
+            frames[i].release();
+            frames[i] = null;
+        }
+    }
+
+    private void signalBackpressure(boolean value) {
+        if (congested.compareAndSet(!value, value) && backpressureListener != null) {
+            Platform.runLater(() -> backpressureListener.accept(value));
         }
-        executor.submit(() -> sendMessage(mt, payload));
     }
 
     /**
      * Исправлено: Потоковое чтение с учетом склейки/разрезания пакетов
      */
-    private void startMessageReader() {
-        executor.submit(() -> {
-            try {
-                while (connected && channel.isOpen()) {
-                    int bytesRead = channel.read(readBuffer);
+    private void readLoop() {
+        try {
+            while (connected && channel.isOpen()) {
+                int bytesRead = channel.read(readBuffer.buffer());
 
-                    if (bytesRead == -1) {
-                        handleDisconnect();
-                        break;
-                    }
+                if (bytesRead == -1) {
+                    handleDisconnect();
+                    break;
+                }
 
-                    if (bytesRead > 0) {
-                        processBuffer();
-                    }
-                    // In blocking mode, read() will block until data arrives or channel closes.
+                if (bytesRead > 0) {
+                    processBuffer();
                 }
-            } catch (Exception e) {
+                // In blocking mode, read() will block until data arrives or channel closes.
+            }
+        } catch (Exception e) {
+            if (connected) {
                 handleSystemError("Сетевая ошибка: " + e.getMessage());
             }
-        });
+        } finally {
+            // Соединение потеряно: поток записи больше не нужен
+            Thread writer = writerThread;
+            if (writer != null) writer.interrupt();
+        }
     }
 
     private void processBuffer() {
-        readBuffer.flip(); // Переходим в режим чтения из буфера
+        ByteBuffer buffer = readBuffer.buffer();
+        buffer.flip(); // Переходим в режим чтения из буфера
 
-        while (readBuffer.remaining() >= 4) {
-            readBuffer.mark(); // Запоминаем позицию начала длины
-            int length = readBuffer.getInt();
+        while (buffer.remaining() >= 4) {
+            buffer.mark(); // Запоминаем позицию начала длины
+            int header = buffer.getInt();
+            int length = header & ProtocolUtils.LENGTH_MASK;
 
             // Basic sanity checks for length to avoid OOM or protocol errors
             if (length <= 0 || length > MAX_MESSAGE_SIZE) {
                 // Protocol error: invalid length
-                readBuffer.reset();
+                buffer.reset();
                 handleSystemError("Protocol error: invalid message length: " + length);
                 try {
                     if (channel != null) channel.close();
@@ -184,50 +329,104 @@ public class NetworkClient {
                 return;
             }
 
-            if (readBuffer.remaining() < length) {
+            if (buffer.remaining() < length) {
                 // Если все тело сообщения еще не дошло, откатываемся и ждем
-                readBuffer.reset();
+                buffer.reset();
+                if (length > buffer.capacity() - 4) {
+                    // Кадр больше буфера: переносим начало кадра в буфер побольше
+                    PooledBuffer grown = bufferPool.acquire(Math.min(BufferPool.MAX_BUFFER, Math.max(buffer.capacity() * 2, length + 4)));
+                    grown.buffer().put(buffer);
+                    readBuffer.release();
+                    readBuffer = grown;
+                    return;
+                }
                 break;
             }
 
             // Читаем тело сообщения
             byte[] body = new byte[length];
-            readBuffer.get(body);
+            buffer.get(body);
 
             try {
-                NetworkMessageDTO msg = objectMapper.readValue(body, NetworkMessageDTO.class);
-                Platform.runLater(() -> {
-                    if (messageHandler != null) messageHandler.accept(msg);
-                });
+                if ((header & ProtocolUtils.FLAG_COMPRESSED) != 0) {
+                    if (compressor == null) {
+                        throw new IOException("Получен сжатый кадр, хотя сжатие не включено");
+                    }
+                    length = compressor.inflate(body, 0, length, ProtocolUtils.MAX_INFLATED_LENGTH);
+                    body = compressor.inflated();
+                }
+                NetworkMessageDTO msg = BinaryCodec.isBinary(body, 0, length)
+                        ? BinaryCodec.readEvent(body, 0, length)
+                        : toMessage(objectMapper.readTree(body, 0, length));
+                if (msg != null && messageHandler != null) messageHandler.accept(msg);
             } catch (IOException e) {
-                System.err.println("Ошибка парсинга JSON: " + e.getMessage());
+                System.err.println("Ошибка разбора сообщения: " + e.getMessage());
             }
         }
-        readBuffer.compact(); // Сохраняем остатки в начало буфера
+        buffer.compact(); // Сохраняем остатки в начало буфера
+        if (buffer.position() == 0 && buffer.capacity() > DEFAULT_READ_BUFFER) {
+            readBuffer.release();
+            readBuffer = bufferPool.acquire(DEFAULT_READ_BUFFER);
+        }
+    }
+
+    /**
+     * Разбирает конверт любой версии: без поля {@code v} — v1 со строковым payload, иначе v2.
+     * @return null, если тип сообщения клиенту неизвестен.
+     */
+    private static NetworkMessageDTO toMessage(JsonNode root) {
+        MessageType type;
+        try {
+            type = MessageType.valueOf(root.path("type").asText());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Неизвестный тип сообщения: " + root.path("type").asText());
+            return null;
+        }
+        JsonNode payload = root.get("payload");
+        String senderId = root.hasNonNull("senderId") ? root.get("senderId").asText() : null;
+        String event = root.hasNonNull("event") ? root.get("event").asText() : null;
+
+        if (!root.has("v")) {
+            return new NetworkMessageDTO(type, payload != null && payload.isTextual() ? payload.asText() : null, senderId);
+        }
+        return new NetworkMessageDTO(type, null, senderId, event,
+                payload == null || payload.isNull() ? null : payload);
     }
 
     private void handleDisconnect() {
         connected = false;
-        Platform.runLater(() -> {
-                if (messageHandler != null) {
-                messageHandler.accept(new NetworkMessageDTO(MessageType.ERROR, "Сервер разорвал соединение", null));
-            }
-        });
+        if (messageHandler != null) {
+            messageHandler.accept(new NetworkMessageDTO(MessageType.ERROR, "Сервер разорвал соединение", null));
+        }
     }
 
     private void handleSystemError(String error) {
         connected = false;
-        Platform.runLater(() -> {
-                if (messageHandler != null) {
-                messageHandler.accept(new NetworkMessageDTO(MessageType.ERROR, error, null));
-            }
-        });
+        if (messageHandler != null) {
+            messageHandler.accept(new NetworkMessageDTO(MessageType.ERROR, error, null));
+        }
     }
 
+    /**
+     * Обработчик вызывается в сетевых потоках; переход в поток JavaFX —
+     * забота обработчика (см. {@link UiMessageDispatcher}).
+     */
     public void setMessageHandler(Consumer<NetworkMessageDTO> handler) {
         this.messageHandler = handler;
     }
 
+    /**
+     * Слушатель перегрузки очереди отправки, вызывается в потоке JavaFX:
+     * true — очередь почти заполнена, false — снова свободна.
+     */
+    public void setBackpressureListener(Consumer<Boolean> listener) {
+        this.backpressureListener = listener;
+    }
+
+    public boolean isCongested() {
+        return congested.get();
+    }
+
     public boolean isConnected() {
         return connected && channel != null && channel.isOpen();
     }
@@ -4,163 +4,155 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.*;
-import java.util.Iterator;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.Map;
-
+import java.util.List;
+
+/**
+ * Сетевой сервер: поток-акцептор принимает подключения и раздает их по кругу
+ * между циклами селекторов ({@link SelectorLoop}), по умолчанию по одному на ядро.
+ * Разобранные кадры обрабатываются не в потоках селекторов, а в полосах
+ * {@link PacketDispatcher} (число полос — {@code -Dscrabble.workerLanes}, 0 — обработка
+ * прямо в потоке селектора, как раньше).
+ */
 public class NetworkServer implements Runnable {
     private final int port;
-    private Selector selector;
+    private final int selectorThreads;
     private ServerSocketChannel serverChannel;
-    private boolean running;
+    private volatile boolean running;
     private PacketHandler packetHandler;
+    private PacketDispatcher dispatcher;
+
+    private static final int WORKER_LANES = Integer.getInteger("scrabble.workerLanes", Runtime.getRuntime().availableProcessors());
+    private static final int WORKER_QUEUE = Integer.getInteger("scrabble.workerQueue", 1024);
 
-    // Мапа для хранения сессий: Канал -> Сессия
-    private final Map<SocketChannel, ClientSession> sessions = new ConcurrentHashMap<>();
+    private final BufferPool bufferPool = new BufferPool();
+    private SelectorLoop[] loops;
+    private int nextLoop;
 
     public NetworkServer(int port) {
+        this(port, Runtime.getRuntime().availableProcessors());
+    }
+
+    public NetworkServer(int port, int selectorThreads) {
+        if (selectorThreads <= 0) {
+            throw new IllegalArgumentException("Количество потоков селектора должно быть положительным: " + selectorThreads);
+        }
         this.port = port;
+        this.selectorThreads = selectorThreads;
     }
 
     @Override
     public void run() {
         try {
-            selector = Selector.open();
+            startLoops();
+
             serverChannel = ServerSocketChannel.open();
             serverChannel.bind(new InetSocketAddress(port));
-            serverChannel.configureBlocking(false);
-            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            // Акцептор блокируется только на accept(); чтение и запись выполняют циклы селекторов
+            serverChannel.configureBlocking(true);
 
             running = true;
-            System.out.println("Сервер запущен на порту: " + port);
+            System.out.println("Сервер запущен на порту: " + port + ", потоков селектора: " + selectorThreads);
 
             while (running) {
-                selector.select(); // Ожидание событий
-                Set<SelectionKey> selectedKeys = selector.selectedKeys();
-                Iterator<SelectionKey> iter = selectedKeys.iterator();
-
-                while (iter.hasNext()) {
-                    SelectionKey key = iter.next();
-
-                    if (key.isAcceptable()) {
-                        registerClient(serverChannel);
-                    }
-                    if (key.isReadable()) {
-                        readMessage(key);
-                    }
-                    iter.remove();
-                }
+                SocketChannel clientChannel = serverChannel.accept();
+                loops[nextLoop].register(clientChannel);
+                nextLoop = (nextLoop + 1) % loops.length;
             }
+        } catch (ClosedChannelException e) {
+            // Канал закрыт через stop()
         } catch (IOException e) {
             e.printStackTrace();
+        } finally {
+            stopLoops();
         }
     }
 
-    private void registerClient(ServerSocketChannel serverChannel) throws IOException {
-        SocketChannel clientChannel = serverChannel.accept();
-        clientChannel.configureBlocking(false);
-        clientChannel.register(selector, SelectionKey.OP_READ);
-        sessions.put(clientChannel, new ClientSession(clientChannel));
-        System.out.println("Новое подключение: " + clientChannel.getRemoteAddress());
+    private void startLoops() throws IOException {
+        loops = new SelectorLoop[selectorThreads];
+        for (int i = 0; i < selectorThreads; i++) {
+            loops[i] = new SelectorLoop(this, bufferPool);
+            Thread thread = new Thread(loops[i], "selector-loop-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
     }
 
-    private void readMessage(SelectionKey key) {
-        SocketChannel channel = (SocketChannel) key.channel();
-        ClientSession session = sessions.get(channel);
-        ByteBuffer buffer = session.getReadBuffer();
-
-        try {
-            int bytesRead = channel.read(buffer);
-            if (bytesRead == -1) {
-                disconnect(channel);
-                return;
-            }
+    private void stopLoops() {
+        if (loops == null) return;
+        for (SelectorLoop loop : loops) {
+            if (loop != null) loop.stop();
+        }
+        if (dispatcher != null) dispatcher.shutdown();
+    }
 
-            // Здесь будет логика разбора протокола [4 байта длины][JSON]
-            processBuffer(session);
+    public BufferPool.Stats getBufferPoolStats() {
+        return bufferPool.stats();
+    }
 
-        } catch (IOException e) {
-            disconnect(channel);
-        }
+    public List<PacketDispatcher.Metrics> getDispatcherMetrics() {
+        return dispatcher != null ? dispatcher.getMetrics() : List.of();
     }
 
-    private void disconnect(SocketChannel channel) {
+    public void stop() {
+        this.running = false;
         try {
-            System.out.println("Клиент отключился: " + channel.getRemoteAddress());
-            sessions.remove(channel);
-            channel.close();
+            if (serverChannel != null) serverChannel.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    public void stop() {
-        this.running = false;
-        if (selector != null) selector.wakeup();
-    }
-
-    // Метод для отправки сообщения клиенту
+    // Метод для отправки сообщения клиенту: кадр ставится в очередь сессии, запись выполнит селектор
     public void sendMessage(SocketChannel channel, String json) throws IOException {
-        byte[] body = json.getBytes(java.nio.charset.StandardCharsets.UTF_8);
-        ByteBuffer buffer = ByteBuffer.allocate(4 + body.length);
-        buffer.putInt(body.length);
-        buffer.put(body);
-        buffer.flip();
-
-        while (buffer.hasRemaining()) {
-            channel.write(buffer);
+        ClientSession session = findSession(channel);
+        if (session == null) {
+            throw new IOException("Сессия для канала не найдена");
         }
+        session.enqueue(session.compress(ProtocolUtils.frame(json.getBytes(java.nio.charset.StandardCharsets.UTF_8))));
     }
 
-    private void processBuffer(ClientSession session) {
-        ByteBuffer buffer = session.getReadBuffer();
-
-        buffer.flip();
-
-        while (true) {
-            if (buffer.remaining() < 4) {
-                break;
-            }
-
-            buffer.mark();
-            int payloadLength = buffer.getInt();
-
-            // Sanity check to avoid invalid or malicious lengths
-            if (payloadLength <= 0 || payloadLength > buffer.capacity() - 4) {
-                System.err.println("Protocol error: invalid payload length: " + payloadLength + " in session " + session.getSessionId());
-                disconnect(session.getChannel());
-                return;
-            }
-
-            if (buffer.remaining() < payloadLength) {
-                buffer.reset();
-                break;
-            }
-
-            byte[] body = new byte[payloadLength];
-            buffer.get(body);
-            String json = new String(body, java.nio.charset.StandardCharsets.UTF_8);
-
-            System.out.println("Получен пакет от сессии " + session.getSessionId() + ": " + json);
-            handleJsonPacket(session, json);
-
+    private ClientSession findSession(SocketChannel channel) {
+        if (loops == null) return null;
+        for (SelectorLoop loop : loops) {
+            ClientSession session = loop.getSession(channel);
+            if (session != null) return session;
         }
-
-
-        buffer.compact();
+        return null;
     }
 
-
     public void setPacketHandler(PacketHandler packetHandler) {
+        if (dispatcher != null) dispatcher.shutdown();
         this.packetHandler = packetHandler;
+        this.dispatcher = WORKER_LANES > 0 ? new PacketDispatcher(packetHandler, WORKER_LANES, WORKER_QUEUE) : null;
     }
 
-    private void handleJsonPacket(ClientSession session, String json) {
+    boolean hasWorkerLanes() {
+        return dispatcher != null;
+    }
+
+    /**
+     * Передает в полосу обработки тело кадра прямо из буфера чтения
+     * ({@code buffer[offset .. offset + length)}, абсолютные индексы). Только при {@link #hasWorkerLanes()}.
+     * @return false, если полоса перегружена и кадр нужно передать позже.
+     */
+    boolean handlePacket(ClientSession session, ByteBuffer buffer, int offset, int length) {
+        return dispatcher.dispatch(session, buffer, offset, length);
+    }
+
+    /**
+     * Передает тело кадра {@code data[offset .. offset + length)} в полосу обработки
+     * (с копированием) или, если полосы отключены, прямо обработчику без копирования.
+     * @return false, если полоса перегружена и кадр нужно передать позже (см. {@link PacketDispatcher}).
+     */
+    boolean handlePacket(ClientSession session, byte[] data, int offset, int length) {
+        if (dispatcher != null) {
+            return dispatcher.dispatch(session, data, offset, length);
+        }
         if (packetHandler != null) {
-            packetHandler.handle(session, json);
+            packetHandler.handle(session, data, offset, length);
         } else {
             System.err.println("Предупреждение: PacketHandler не установлен!");
         }
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,252 @@
+package ru.itis.scrabble.network;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Стадия обработки пакетов между циклами селектора и {@link PacketHandler}.
+ * <p>
+ * Поток селектора только читает и разрезает кадры: тело кадра копируется и ставится
+ * в очередь одной из полос (lane) — потоков-обработчиков с собственной очередью.
+ * Кадр копируется один раз — из буфера чтения сессии в массив ячейки полосы; ячейки
+ * и их массивы переиспользуются, так что постановка кадра в очередь память не выделяет.
+ * Полоса закреплена за сессией на все время соединения (и при входе в комнату не меняется),
+ * поэтому сообщения одной сессии обрабатываются строго по порядку, а медленный обработчик
+ * (авторизация через БД, проверка предпросмотра) задерживает только свою полосу.
+ * Порядок изменений комнаты обеспечивает не полоса, а почтовый ящик комнаты
+ * ({@link ru.itis.scrabble.services.RoomActor}): ход, предпросмотр и запрос состояния
+ * ставятся в него в том порядке, в каком их разобрали полосы.
+ * </p>
+ * <p>
+ * Число ячеек полосы равно длине ее очереди. Если свободных ячеек нет, кадр не принимается и не теряется: он остается
+ * в буфере чтения сессии, селектор перестает читать ее сокет (снимает OP_READ),
+ * а полоса, разгрузившись до половины очереди, возобновляет чтение всех ждущих сессий.
+ * Поток селектора никогда не ждет обработчиков, а перегрузку чувствует сам клиент
+ * через TCP-окно.
+ * </p>
+ */
+public final class PacketDispatcher {
+    // Гистограмма задержек: в корзине i значения меньше 2^i микросекунд (и не меньше 2^(i-1))
+    private static final int LATENCY_BUCKETS = 32;
+    // Массив ячейки больше этого размера после обработки не удерживается
+    private static final int MAX_RETAINED_BODY = 4096;
+    private static final byte[] EMPTY = new byte[0];
+
+    private final PacketHandler handler;
+    private final Lane[] lanes;
+
+    /**
+     * Снимок метрик полосы: очередь и задержка от чтения кадра до начала его обработки.
+     * p99 округляется вверх до степени двойки микросекунд (но не выше максимума).
+     */
+    public record Metrics(int lane, int queueDepth, long processed, long throttled,
+                          long avgLatencyMicros, long p99LatencyMicros, long maxLatencyMicros) {
+    }
+
+    /**
+     * Ячейка полосы: кадр, ожидающий обработки. Заполняется потоком селектора,
+     * после обработки возвращается в список свободных ячеек полосы.
+     */
+    private static final class Packet {
+        private ClientSession session;
+        private byte[] body = EMPTY;
+        private int length;
+        private long readNanos;
+
+        byte[] bodyFor(int length) {
+            if (body.length < length) {
+                body = new byte[Math.max(length, 256)];
+            }
+            this.length = length;
+            return body;
+        }
+
+        void clear() {
+            session = null;
+            if (body.length > MAX_RETAINED_BODY) body = EMPTY;
+        }
+    }
+
+    public PacketDispatcher(PacketHandler handler, int lanes, int queueCapacity) {
+        if (lanes <= 0) {
+            throw new IllegalArgumentException("Количество полос обработки должно быть положительным: " + lanes);
+        }
+        this.handler = handler;
+        this.lanes = new Lane[lanes];
+        for (int i = 0; i < lanes; i++) {
+            this.lanes[i] = new Lane(i, queueCapacity);
+            Thread thread = new Thread(this.lanes[i], "packet-worker-" + i);
+            thread.setDaemon(true);
+            this.lanes[i].thread = thread;
+            thread.start();
+        }
+    }
+
+    /**
+     * Копирует тело кадра {@code data[offset .. offset + length)} и ставит его в очередь полосы.
+     * Вызывается потоком селектора; массив после возврата можно переиспользовать.
+     * @return false, если полоса перегружена: кадр не принят, и сессия получит
+     *         {@link ClientSession#resumeReads()}, когда полоса разгрузится.
+     */
+    public boolean dispatch(ClientSession session, byte[] data, int offset, int length) {
+        Lane lane = lanes[laneOf(session)];
+        Packet packet = lane.claim(session);
+        if (packet == null) return false;
+        System.arraycopy(data, offset, packet.bodyFor(length), 0, length);
+        lane.submit(packet, session);
+        return true;
+    }
+
+    /**
+     * То же для кадра в буфере ({@code buffer[offset .. offset + length)}, абсолютные индексы):
+     * тело копируется прямо из буфера чтения, в том числе прямого, без промежуточного массива.
+     */
+    public boolean dispatch(ClientSession session, ByteBuffer buffer, int offset, int length) {
+        Lane lane = lanes[laneOf(session)];
+        Packet packet = lane.claim(session);
+        if (packet == null) return false;
+        buffer.get(offset, packet.bodyFor(length), 0, length);
+        lane.submit(packet, session);
+        return true;
+    }
+
+    private int laneOf(ClientSession session) {
+        // Ключ не зависит от комнаты: смена полосы при входе в комнату переставила бы
+        // кадры, еще стоящие в прежней полосе, после новых
+        int key = session.getSessionId().hashCode();
+        // Перемешиваем биты: хеши строк плохо распределены в младших битах
+        key *= 0x9E3779B9;
+        return Math.floorMod(key ^ (key >>> 16), lanes.length);
+    }
+
+    public List<Metrics> getMetrics() {
+        List<Metrics> metrics = new ArrayList<>(lanes.length);
+        for (Lane lane : lanes) {
+            metrics.add(lane.metrics());
+        }
+        return metrics;
+    }
+
+    public void shutdown() {
+        for (Lane lane : lanes) {
+            lane.running = false;
+            lane.thread.interrupt();
+        }
+    }
+
+    private final class Lane implements Runnable {
+        private final int index;
+        private final BlockingQueue<Packet> queue;
+        // Свободные ячейки; их столько же, сколько мест в очереди, поэтому очередь не переполняется
+        private final BlockingQueue<Packet> free;
+        private final int resumeThreshold;
+        // Сессии, чье чтение приостановлено до разгрузки этой полосы
+        private final Queue<ClientSession> waiting = new ConcurrentLinkedQueue<>();
+        private Thread thread;
+        private volatile boolean running = true;
+
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong throttled = new AtomicLong();
+        private final AtomicLong totalLatencyNanos = new AtomicLong();
+        private final AtomicLong maxLatencyNanos = new AtomicLong();
+        private final AtomicLongArray histogram = new AtomicLongArray(LATENCY_BUCKETS);
+
+        Lane(int index, int queueCapacity) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.free = new ArrayBlockingQueue<>(queueCapacity);
+            for (int i = 0; i < queueCapacity; i++) {
+                free.add(new Packet());
+            }
+            this.resumeThreshold = queueCapacity / 2;
+        }
+
+        /**
+         * @return свободная ячейка или null, если полоса перегружена (сессия поставлена в ожидание).
+         */
+        Packet claim(ClientSession session) {
+            Packet packet = free.poll();
+            if (packet != null) return packet;
+            // Сначала встаем в ожидание, потом повторяем попытку: иначе полоса могла разгрузиться
+            // между неудачной попыткой и записью в ожидание, и сессию никто бы не разбудил.
+            // Лишнее пробуждение после удачного повтора безвредно.
+            waiting.add(session);
+            packet = free.poll();
+            if (packet == null) {
+                throttled.incrementAndGet();
+            }
+            return packet;
+        }
+
+        void submit(Packet packet, ClientSession session) {
+            packet.session = session;
+            packet.readNanos = System.nanoTime();
+            // Ячейка получена из свободных, поэтому место в очереди для нее есть всегда
+            queue.offer(packet);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                Packet packet;
+                try {
+                    packet = queue.take();
+                } catch (InterruptedException e) {
+                    break;
+                }
+
+                long waited = System.nanoTime() - packet.readNanos;
+                totalLatencyNanos.addAndGet(waited);
+                maxLatencyNanos.accumulateAndGet(waited, Math::max);
+                long micros = waited / 1_000;
+                histogram.incrementAndGet(Math.min(LATENCY_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros)));
+
+                try {
+                    handler.handle(packet.session, packet.body, 0, packet.length);
+                } catch (Exception e) {
+                    System.err.println("Ошибка обработки пакета сессии " + packet.session.getSessionId() + ": " + e.getMessage());
+                } finally {
+                    processed.incrementAndGet();
+                    packet.clear();
+                    free.offer(packet);
+                }
+
+                if (!waiting.isEmpty() && queue.size() <= resumeThreshold) {
+                    ClientSession session;
+                    while ((session = waiting.poll()) != null) {
+                        session.resumeReads();
+                    }
+                }
+            }
+        }
+
+        Metrics metrics() {
+            long count = processed.get();
+            return new Metrics(index, queue.size(), count, throttled.get(),
+                    count == 0 ? 0 : totalLatencyNanos.get() / count / 1_000,
+                    percentileMicros(0.99), maxLatencyNanos.get() / 1_000);
+        }
+
+        private long percentileMicros(double quantile) {
+            long total = 0;
+            for (int i = 0; i < LATENCY_BUCKETS; i++) {
+                total += histogram.get(i);
+            }
+            if (total == 0) return 0;
+            long threshold = (long) Math.ceil(total * quantile);
+            long seen = 0;
+            for (int i = 0; i < LATENCY_BUCKETS; i++) {
+                seen += histogram.get(i);
+                if (seen >= threshold) return i == 0 ? 0 : Math.min(1L << i, maxLatencyNanos.get() / 1_000);
+            }
+            return maxLatencyNanos.get() / 1_000;
+        }
+    }
+}
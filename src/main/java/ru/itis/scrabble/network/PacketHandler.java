@@ -1,107 +1,315 @@
 package ru.itis.scrabble.network;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import ru.itis.scrabble.dto.NetworkMessageDTO;
+import ru.itis.scrabble.dto.AuthRequestDTO;
+import ru.itis.scrabble.dto.ErrorDTO;
+import ru.itis.scrabble.dto.MessageEnvelopeDTO;
+import ru.itis.scrabble.dto.PlacementsDTO;
+import ru.itis.scrabble.dto.TextDTO;
 import ru.itis.scrabble.dto.TilePlacementDTO;
+import ru.itis.scrabble.models.Tile;
 import ru.itis.scrabble.services.GameSessionService;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Диспетчер пакетов. Преобразует JSON в команды для бизнес-логики.
+ * <p>
+ * Конверт {@code {"type", "payload", "senderId"}} разбирается потоковым парсером
+ * прямо из байтов кадра, без промежуточных строк: тип сообщения сравнивается
+ * с именами {@link MessageType} посимвольно, а вложенный JSON из {@code payload}
+ * разбирается из символьного буфера парсера.
+ * </p>
+ * <p>
+ * Версия протокола определяется по каждому кадру: если {@code payload} — JSON-объект
+ * или массив, а не строка, это конверт v2, и payload связывается с классом из
+ * {@link PayloadRegistry}. AUTH в формате v2 переключает ответы сессии на v2,
+ * клиенты v1 продолжают получать строковые payload.
+ * </p>
+ * <p>
+ * Кадры, начинающиеся с {@link BinaryCodec#MARKER}, разбираются двоичным кодеком;
+ * после первого такого кадра ответы сессии тоже кодируются двоично, где это возможно.
+ * </p>
  */
 public class PacketHandler {
+    private static final MessageType[] TYPES = MessageType.values();
+    private static final char[][] TYPE_NAMES = new char[TYPES.length][];
+    // Фишка по букве (имена констант Tile — одна буква)
+    private static final Tile[] TILE_BY_LETTER = new Tile[26];
+
+    static {
+        for (int i = 0; i < TYPES.length; i++) {
+            TYPE_NAMES[i] = TYPES[i].name().toCharArray();
+        }
+        for (Tile tile : Tile.values()) {
+            TILE_BY_LETTER[tile.name().charAt(0) - 'A'] = tile;
+        }
+    }
+
     private final ObjectMapper objectMapper;
+    private final JsonFactory jsonFactory;
     private final GameSessionService gameSessionService;
 
     public PacketHandler(GameSessionService gameSessionService) {
         this.objectMapper = new ObjectMapper();
+        this.jsonFactory = objectMapper.getFactory();
         this.gameSessionService = gameSessionService;
     }
 
-    public void handle(ClientSession session, String json) {
-        try {
-            NetworkMessageDTO message = objectMapper.readValue(json, NetworkMessageDTO.class);
+    /**
+     * Обрабатывает тело кадра {@code data[offset .. offset + length)}.
+     * Массив принадлежит вызывающему и может быть переиспользован после возврата.
+     */
+    public void handle(ClientSession session, byte[] data, int offset, int length) {
+        if (BinaryCodec.isBinary(data, offset, length)) {
+            handleBinary(session, data, offset, length);
+            return;
+        }
+        try (JsonParser parser = jsonFactory.createParser(data, offset, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Ожидался JSON-объект");
+            }
 
-            switch (message.type()) {
-                case AUTH -> handleAuth(session, message);
-                case TURN_COMMIT -> handleTurn(session, message);
-                case TILE_PREVIEW -> handlePreview(session, message);
-                case HEARTBEAT -> gameSessionService.handleHeartbeat(session);
-                default -> System.out.println("Unknown message type: " + message.type());
+            MessageType type = null;
+            boolean dispatched = false;
+            char[] deferredPayload = null;
+            JsonNode deferredTree = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                // Имена полей Jackson канонизирует, так что switch по ним не создает строк
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("type".equals(field) && value == JsonToken.VALUE_STRING) {
+                    type = lookupType(parser);
+                    if (type == null) {
+                        System.out.println("Unknown message type: " + parser.getText());
+                        return;
+                    }
+                } else if ("payload".equals(field) && (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY)) {
+                    if (type != null) {
+                        dispatchStructured(session, type, PayloadRegistry.read(type, parser));
+                        dispatched = true;
+                    } else {
+                        deferredTree = parser.readValueAsTree();
+                    }
+                } else if ("payload".equals(field) && value == JsonToken.VALUE_STRING) {
+                    if (type != null) {
+                        // Символы payload действительны до следующего токена: разбираем сразу
+                        dispatch(session, type, parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                        dispatched = true;
+                    } else {
+                        // Редкий случай: payload пришел раньше type
+                        deferredPayload = parser.getText().toCharArray();
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (type == null) {
+                throw new JsonParseException(parser, "Нет поля type");
             }
-        } catch (JsonProcessingException e) {
+            if (!dispatched) {
+                if (deferredTree != null) {
+                    dispatchStructured(session, type, PayloadRegistry.bind(type, deferredTree));
+                } else if (deferredPayload != null) {
+                    dispatch(session, type, deferredPayload, 0, deferredPayload.length);
+                } else {
+                    dispatch(session, type, null, 0, 0);
+                }
+            }
+        } catch (IOException e) {
             System.err.println("Ошибка парсинга JSON: " + e.getMessage());
             sendError(session, "INVALID_FORMAT", "Некорректный формат сообщения");
         }
     }
 
-    private void handleAuth(ClientSession session, NetworkMessageDTO message) {
+    private void handleBinary(ClientSession session, byte[] data, int offset, int length) {
+        session.setBinaryCodec(true);
         try {
-            // Парсим JSON из payload
-            Map<String, String> credentials = objectMapper.readValue(message.payload(),
-                    new com.fasterxml.jackson.core.type.TypeReference<>() {});
-
-            String username = credentials.get("username");
-            String password = credentials.get("password");
+            MessageType type = BinaryCodec.readType(data, offset);
+            switch (type) {
+                case TURN_COMMIT -> gameSessionService.commitTurn(session, BinaryCodec.readPlacements(data, offset, length));
+                case TILE_PREVIEW -> gameSessionService.processPreview(session, BinaryCodec.readPlacements(data, offset, length));
+                case HEARTBEAT -> gameSessionService.handleHeartbeat(session);
+                case GET_GAME_STATE -> gameSessionService.sendFullState(session);
+                default -> System.out.println("Unknown message type: " + type);
+            }
+        } catch (IOException e) {
+            System.err.println("Ошибка разбора двоичного кадра: " + e.getMessage());
+            sendError(session, "INVALID_FORMAT", "Некорректный формат сообщения");
+        }
+    }
 
-            // Вызов вашего сервиса авторизации
-            gameSessionService.authenticate(session, username, password);
+    private static MessageType lookupType(JsonParser parser) throws IOException {
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        for (int i = 0; i < TYPE_NAMES.length; i++) {
+            if (TYPE_NAMES[i].length == length
+                    && Arrays.equals(TYPE_NAMES[i], 0, length, chars, offset, offset + length)) {
+                return TYPES[i];
+            }
+        }
+        return null;
+    }
 
-            // Получаем ID после успешной аутентификации (предположим, сервис сохранил его в сессию)
-            Long userId = session.getUserId();
+    private void dispatch(ClientSession session, MessageType type, char[] payload, int offset, int length) throws IOException {
+        switch (type) {
+            case AUTH -> handleAuth(session, payload, offset, length);
+            case TURN_COMMIT -> handleTurn(session, payload, offset, length);
+            case TILE_PREVIEW -> handlePreview(session, payload, offset, length);
+            case HEARTBEAT -> gameSessionService.handleHeartbeat(session);
+            case GET_GAME_STATE -> gameSessionService.sendFullState(session);
+            default -> System.out.println("Unknown message type: " + type);
+        }
+    }
 
-            if (userId != null) {
-                // Формируем JSON-тело ответа
-                String userJson = String.format("{\"userId\":%d,\"username\":\"%s\"}", userId, username);
+    /**
+     * Обработка конверта v2: payload уже связан с DTO из {@link PayloadRegistry}.
+     */
+    private void dispatchStructured(ClientSession session, MessageType type, Object payload) throws IOException {
+        switch (type) {
+            case AUTH -> {
+                // Клиент говорит на v2: ответ на AUTH и все последующие сообщения уходят в v2
+                session.setProtocolVersion(MessageEnvelopeDTO.VERSION);
+                AuthRequestDTO auth = (AuthRequestDTO) payload;
+                gameSessionService.authenticate(session, auth.username(), auth.password());
+            }
+            case TURN_COMMIT -> gameSessionService.commitTurn(session, placementsOf(payload));
+            case TILE_PREVIEW -> gameSessionService.processPreview(session, placementsOf(payload));
+            case HEARTBEAT -> gameSessionService.handleHeartbeat(session);
+            case GET_GAME_STATE -> gameSessionService.sendFullState(session);
+            default -> System.out.println("Unknown message type: " + type);
+        }
+    }
 
-                // Формируем финальную строку ПРЕФИКС|JSON
-                String responsePayload = "AUTH_SUCCESS|" + userJson;
+    private static List<TilePlacementDTO> placementsOf(Object payload) throws IOException {
+        List<TilePlacementDTO> placements = ((PlacementsDTO) payload).placements();
+        if (placements == null) {
+            throw new IOException("Нет поля placements");
+        }
+        return placements;
+    }
 
-                session.sendMessage(new NetworkMessageDTO(MessageType.AUTH, responsePayload, "SERVER"));
-            } else {
-                session.sendMessage(new NetworkMessageDTO(MessageType.AUTH, "AUTH_ERROR|Неверный логин или пароль", "SERVER"));
+    private void handleAuth(ClientSession session, char[] payload, int offset, int length) {
+        try {
+            // Парсим JSON из payload
+            String username = null;
+            String password = null;
+            if (payload != null) {
+                try (JsonParser parser = jsonFactory.createParser(payload, offset, length)) {
+                    if (parser.nextToken() == JsonToken.START_OBJECT) {
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String field = parser.currentName();
+                            parser.nextToken();
+                            if ("username".equals(field)) username = parser.getValueAsString();
+                            else if ("password".equals(field)) password = parser.getValueAsString();
+                            else parser.skipChildren();
+                        }
+                    }
+                }
             }
 
+            // Ответ AUTH_SUCCESS / AUTH_ERROR отправляет сервис авторизации
+            gameSessionService.authenticate(session, username, password);
         } catch (Exception e) {
-            session.sendMessage(new NetworkMessageDTO(MessageType.AUTH, "AUTH_ERROR|Ошибка сервера: " + e.getMessage(), "SERVER"));
+            session.send(MessageEnvelopeDTO.fromServer(MessageType.AUTH, "AUTH_ERROR", new TextDTO("Ошибка сервера: " + e.getMessage())));
         }
     }
 
-    private void handleTurn(ClientSession session, NetworkMessageDTO message) {
+
+    private void handleTurn(ClientSession session, char[] payload, int offset, int length) {
         try {
             // Десериализуем список фишек из payload
-            List<TilePlacementDTO> placements = objectMapper.readValue(
-                    message.payload(),
-                    new TypeReference<List<TilePlacementDTO>>() {}
-            );
-            gameSessionService.commitTurn(session, placements);
-        } catch (JsonProcessingException e) {
+            gameSessionService.commitTurn(session, readPlacements(payload, offset, length));
+        } catch (IOException e) {
             sendError(session, "TURN_ERROR", "Ошибка данных хода");
         }
     }
 
-    private void handlePreview(ClientSession session, NetworkMessageDTO message) {
+    private void handlePreview(ClientSession session, char[] payload, int offset, int length) {
         try {
-            List<TilePlacementDTO> placements = objectMapper.readValue(
-                    message.payload(),
-                    new TypeReference<List<TilePlacementDTO>>() {}
-            );
-            gameSessionService.processPreview(session, placements);
-        } catch (JsonProcessingException e) {
+            gameSessionService.processPreview(session, readPlacements(payload, offset, length));
+        } catch (IOException e) {
             // Для превью ошибки можно игнорировать или логировать тихо
         }
     }
 
+    /**
+     * Читает фишки хода: либо массив {@code [{tile, x, y}, ...]}, либо объект
+     * с таким массивом в поле {@code placements} (так шлет предпросмотр клиент).
+     */
+    private List<TilePlacementDTO> readPlacements(char[] payload, int offset, int length) throws IOException {
+        if (payload == null) {
+            throw new IOException("Пустые данные хода");
+        }
+        try (JsonParser parser = jsonFactory.createParser(payload, offset, length)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    token = parser.nextToken();
+                    if ("placements".equals(field) && token == JsonToken.START_ARRAY) {
+                        return readPlacementArray(parser);
+                    }
+                    parser.skipChildren();
+                }
+                throw new JsonParseException(parser, "Нет поля placements");
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Ожидался массив фишек");
+            }
+            return readPlacementArray(parser);
+        }
+    }
+
+    private static List<TilePlacementDTO> readPlacementArray(JsonParser parser) throws IOException {
+        List<TilePlacementDTO> placements = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            Tile tile = null;
+            int x = -1;
+            int y = -1;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("tile".equals(field) && value == JsonToken.VALUE_STRING) {
+                    tile = lookupTile(parser);
+                } else if ("x".equals(field)) {
+                    x = parser.getValueAsInt(-1);
+                } else if ("y".equals(field)) {
+                    y = parser.getValueAsInt(-1);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (tile == null) {
+                throw new JsonParseException(parser, "Неизвестная фишка");
+            }
+            placements.add(new TilePlacementDTO(tile, x, y));
+        }
+        return placements;
+    }
+
+    private static Tile lookupTile(JsonParser parser) throws IOException {
+        if (parser.getTextLength() != 1) return null;
+        int letter = Character.toUpperCase(parser.getTextCharacters()[parser.getTextOffset()]) - 'A';
+        return letter >= 0 && letter < TILE_BY_LETTER.length ? TILE_BY_LETTER[letter] : null;
+    }
+
     private void sendError(ClientSession session, String code, String text) {
         try {
-            NetworkMessageDTO error = new NetworkMessageDTO(MessageType.ERROR, text, "SERVER");
-            session.sendMessage(error);
+            session.send(MessageEnvelopeDTO.fromServer(MessageType.ERROR, null, new ErrorDTO(code, text)));
         } catch (Exception e) {
             System.err.println("Не удалось отправить ошибку в сессию " + session.getSessionId() + ": " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,59 @@
+package ru.itis.scrabble.network;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ru.itis.scrabble.dto.AuthRequestDTO;
+import ru.itis.scrabble.dto.ErrorDTO;
+import ru.itis.scrabble.dto.GameStateDeltaDTO;
+import ru.itis.scrabble.dto.PlacementsDTO;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Типы payload протокола v2 по {@link MessageType}.
+ * Для типов без зарегистрированного класса payload остается {@link JsonNode}.
+ */
+public final class PayloadRegistry {
+    private static final Map<MessageType, Class<?>> TYPES = new EnumMap<>(MessageType.class);
+    // Лишние поля в payload не считаются ошибкой: клиенты могут присылать контекст (roomPort и т.п.)
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    static {
+        // Клиент -> сервер
+        TYPES.put(MessageType.AUTH, AuthRequestDTO.class);
+        TYPES.put(MessageType.TURN_COMMIT, PlacementsDTO.class);
+        TYPES.put(MessageType.TILE_PREVIEW, PlacementsDTO.class);
+        // Сервер -> клиент
+        TYPES.put(MessageType.SYNC_DELTA, GameStateDeltaDTO.class);
+        TYPES.put(MessageType.ERROR, ErrorDTO.class);
+    }
+
+    private PayloadRegistry() {}
+
+    public static Class<?> payloadType(MessageType type) {
+        return TYPES.getOrDefault(type, JsonNode.class);
+    }
+
+    /**
+     * Связывает payload, на начале которого стоит парсер, с классом для данного типа сообщения.
+     */
+    public static Object read(MessageType type, JsonParser parser) throws IOException {
+        return MAPPER.readValue(parser, payloadType(type));
+    }
+
+    /**
+     * Связывает уже разобранное поддерево с классом для данного типа сообщения.
+     */
+    public static Object bind(MessageType type, JsonNode payload) throws IOException {
+        return MAPPER.treeToValue(payload, payloadType(type));
+    }
+
+    public static <T> T bind(JsonNode payload, Class<T> type) throws IOException {
+        return MAPPER.treeToValue(payload, type);
+    }
+}
@@ -0,0 +1,56 @@
+package ru.itis.scrabble.network;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Буфер из {@link BufferPool} со счетчиком ссылок.
+ * <p>
+ * Один закодированный кадр может стоять в очередях нескольких сессий (рассылка):
+ * каждая очередь держит свою ссылку ({@link #retain()}), и буфер возвращается
+ * в пул, когда отпущена последняя ({@link #release()}).
+ * </p>
+ */
+public final class PooledBuffer {
+    private final ByteBuffer buffer;
+    private final BufferPool pool;
+    private final AtomicInteger refs = new AtomicInteger(1);
+    // Только в режиме поиска утечек
+    private final BufferPool.LeakTracker tracker;
+    private final Cleaner.Cleanable cleanable;
+
+    PooledBuffer(ByteBuffer buffer, BufferPool pool, BufferPool.LeakTracker tracker) {
+        this.buffer = buffer;
+        this.pool = pool;
+        this.tracker = tracker;
+        this.cleanable = tracker != null ? BufferPool.track(this, tracker) : null;
+    }
+
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    public PooledBuffer retain() {
+        if (refs.getAndIncrement() <= 0) {
+            throw new IllegalStateException("Буфер уже возвращен в пул");
+        }
+        return this;
+    }
+
+    /**
+     * Отпускает одну ссылку; последняя возвращает буфер в пул.
+     */
+    public void release() {
+        int left = refs.decrementAndGet();
+        if (left > 0) return;
+        if (left < 0) {
+            throw new IllegalStateException("Повторный возврат буфера в пул");
+        }
+        if (tracker != null) {
+            tracker.released = true;
+            cleanable.clean();
+        }
+        pool.recycle(buffer);
+    }
+}
@@ -0,0 +1,59 @@
+package ru.itis.scrabble.network;
+
+import ru.itis.scrabble.dto.TilePlacementDTO;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Предпросмотры одной сессии: слот для последнего еще не проверенного предпросмотра
+ * и ограничитель частоты проверок (token bucket).
+ * <p>
+ * Клиент шлет TILE_PREVIEW на каждую выложенную фишку, но смысл имеет только последний:
+ * новый предпросмотр заменяет ожидающий, а проверки выполняются не чаще
+ * {@code -Dscrabble.preview.rate} в секунду с запасом {@code -Dscrabble.preview.burst}.
+ * </p>
+ */
+public final class PreviewGate {
+    private static final double RATE_PER_SECOND = Math.max(0.1, Double.parseDouble(System.getProperty("scrabble.preview.rate", "10")));
+    private static final double BURST = Math.max(1, Integer.getInteger("scrabble.preview.burst", 5));
+    private static final double TOKENS_PER_NANO = RATE_PER_SECOND / TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicReference<List<TilePlacementDTO>> pending = new AtomicReference<>();
+
+    // Состояние ограничителя; защищено монитором this
+    private double tokens = BURST;
+    private long refilledAt = System.nanoTime();
+
+    /**
+     * Кладет предпросмотр в слот, заменяя ожидающий.
+     * @return true, если ожидающий предпросмотр был заменен (и его проверка уже запланирована).
+     */
+    public boolean offer(List<TilePlacementDTO> placements) {
+        return pending.getAndSet(placements) != null;
+    }
+
+    /**
+     * Забирает последний предпросмотр из слота.
+     * @return null, если слот пуст.
+     */
+    public List<TilePlacementDTO> take() {
+        return pending.getAndSet(null);
+    }
+
+    /**
+     * Тратит токен на одну проверку.
+     * @return 0, если токен получен, иначе сколько наносекунд ждать следующего токена.
+     */
+    public synchronized long tryAcquire() {
+        long now = System.nanoTime();
+        tokens = Math.min(BURST, tokens + (now - refilledAt) * TOKENS_PER_NANO);
+        refilledAt = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / TOKENS_PER_NANO);
+    }
+}
@@ -1,21 +1,150 @@
 package ru.itis.scrabble.network;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import ru.itis.scrabble.dto.ErrorDTO;
+import ru.itis.scrabble.dto.MessageEnvelopeDTO;
 import ru.itis.scrabble.dto.NetworkMessageDTO;
+import ru.itis.scrabble.dto.TextDTO;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Utilities for length-prefixed JSON protocol: [4-byte length][JSON bytes]
+ * <p>
+ * The same framing also carries {@link BinaryCodec} bodies; they start with
+ * {@link BinaryCodec#MARKER} instead of '{', so the codec is chosen per frame.
+ * The two high bits of the length header are flags ({@link #FLAG_COMPRESSED},
+ * {@link #FLAG_ACCEPTS_COMPRESSED}); the length itself is {@code header & LENGTH_MASK}.
  */
 public final class ProtocolUtils {
+    /** Length header flag: the body is compressed by {@link FrameCompressor}. */
+    public static final int FLAG_COMPRESSED = 0x80000000;
+    /** Length header flag: the sender accepts compressed frames from the peer. */
+    public static final int FLAG_ACCEPTS_COMPRESSED = 0x40000000;
+    public static final int LENGTH_MASK = 0x3FFFFFFF;
+    // Upper bound for an inflated body, so a small frame cannot expand without limit
+    public static final int MAX_INFLATED_LENGTH = 1 << 20;
+
     private ProtocolUtils() {}
 
     public static ByteBuffer encode(NetworkMessageDTO msg, ObjectMapper mapper) throws IOException {
-        byte[] body = mapper.writeValueAsBytes(msg);
+        return frame(mapper.writeValueAsBytes(msg));
+    }
+
+    /**
+     * Encodes a v2 envelope: the payload is written as a JSON subtree, without a second encoding pass.
+     */
+    public static ByteBuffer encode(MessageEnvelopeDTO msg, ObjectMapper mapper) throws IOException {
+        return frame(mapper.writeValueAsBytes(msg));
+    }
+
+    /**
+     * Converts a v2 envelope into the legacy v1 message for clients that did not negotiate v2:
+     * the event becomes a {@code EVENT|} prefix, text results and error messages are sent as plain text
+     * (v1 has no place for the error code), any other payload as an embedded JSON string.
+     */
+    public static NetworkMessageDTO toLegacy(MessageEnvelopeDTO msg, ObjectMapper mapper) throws IOException {
+        String body;
+        if (msg.payload() == null) {
+            body = msg.event() != null ? "{}" : "";
+        } else if (msg.payload() instanceof TextDTO text) {
+            body = text.message();
+        } else if (msg.payload() instanceof ErrorDTO error) {
+            body = error.message();
+        } else if (msg.payload() instanceof String text) {
+            body = text;
+        } else {
+            body = mapper.writeValueAsString(msg.payload());
+        }
+        String payload = msg.event() != null ? msg.event() + "|" + body : body;
+        return new NetworkMessageDTO(msg.type(), payload, msg.senderId());
+    }
+
+    /**
+     * Encodes a message and compresses the frame with the connection's compressor
+     * when it is large enough.
+     */
+    public static ByteBuffer encode(MessageEnvelopeDTO msg, ObjectMapper mapper, FrameCompressor compressor) throws IOException {
+        ByteBuffer frame = encode(msg, mapper);
+        return compressor != null ? compressor.compress(frame) : frame;
+    }
+
+    /**
+     * Serializes a message straight into a pooled direct buffer as a ready [length][body] frame,
+     * without an intermediate byte array. The buffer grows by size class if the body does not fit.
+     * @return frame in read mode; the caller owns one reference.
+     */
+    public static PooledBuffer encodePooled(Object msg, ObjectMapper mapper, BufferPool pool) throws IOException {
+        FrameOutputStream out = new FrameOutputStream(pool);
+        try {
+            mapper.writeValue(out, msg);
+        } catch (IOException | RuntimeException e) {
+            out.frame.release();
+            throw e;
+        }
+        ByteBuffer buffer = out.frame.buffer();
+        buffer.putInt(0, buffer.position() - 4);
+        buffer.flip();
+        return out.frame;
+    }
+
+    /**
+     * Sink for Jackson that writes after a reserved 4-byte header of a pooled buffer.
+     * Closing it (Jackson does so after writeValue) does not release the buffer.
+     */
+    private static final class FrameOutputStream extends OutputStream {
+        private final BufferPool pool;
+        private PooledBuffer frame;
+
+        FrameOutputStream(BufferPool pool) {
+            this.pool = pool;
+            this.frame = pool.acquire(BufferPool.MIN_BUFFER);
+            frame.buffer().position(4);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ensure(1);
+            frame.buffer().put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            ensure(length);
+            frame.buffer().put(bytes, offset, length);
+        }
+
+        private void ensure(int length) throws IOException {
+            ByteBuffer buffer = frame.buffer();
+            if (buffer.remaining() >= length) return;
+            int needed = buffer.position() + length;
+            if (needed > BufferPool.MAX_BUFFER) {
+                throw new IOException("Frame exceeds " + BufferPool.MAX_BUFFER + " bytes");
+            }
+            PooledBuffer grown = pool.acquire(Math.min(BufferPool.MAX_BUFFER, Math.max(needed, buffer.capacity() * 2)));
+            grown.buffer().put(buffer.flip());
+            frame.release();
+            frame = grown;
+        }
+    }
+
+    /**
+     * Sets {@link #FLAG_ACCEPTS_COMPRESSED} on a frame that has not been sent yet.
+     */
+    public static ByteBuffer markAcceptsCompressed(ByteBuffer frame) {
+        int position = frame.position();
+        frame.putInt(position, frame.getInt(position) | FLAG_ACCEPTS_COMPRESSED);
+        return frame;
+    }
+
+    /**
+     * Wraps an already serialized body into a [4-byte length][body] frame ready for writing.
+     */
+    public static ByteBuffer frame(byte[] body) {
         ByteBuffer buffer = ByteBuffer.allocate(4 + body.length);
         buffer.putInt(body.length);
         buffer.put(body);
@@ -29,11 +158,20 @@ public final class ProtocolUtils {
      * with position after the last read byte; caller should compact() as needed.
      */
     public static List<NetworkMessageDTO> decode(ByteBuffer buffer, ObjectMapper mapper) throws IOException {
+        return decode(buffer, mapper, null);
+    }
+
+    /**
+     * Same as {@link #decode(ByteBuffer, ObjectMapper)}, inflating compressed frames with the given
+     * connection compressor.
+     */
+    public static List<NetworkMessageDTO> decode(ByteBuffer buffer, ObjectMapper mapper, FrameCompressor compressor) throws IOException {
         List<NetworkMessageDTO> messages = new ArrayList<>();
 
         while (buffer.remaining() >= 4) {
             buffer.mark();
-            int length = buffer.getInt();
+            int header = buffer.getInt();
+            int length = header & LENGTH_MASK;
 
             if (length <= 0) {
                 buffer.reset();
@@ -47,8 +185,15 @@ public final class ProtocolUtils {
 
             byte[] body = new byte[length];
             buffer.get(body);
-            NetworkMessageDTO msg = mapper.readValue(body, NetworkMessageDTO.class);
-            messages.add(msg);
+            if ((header & FLAG_COMPRESSED) != 0) {
+                if (compressor == null) {
+                    throw new IOException("Compressed frame without a compressor");
+                }
+                int size = compressor.inflate(body, 0, length, MAX_INFLATED_LENGTH);
+                messages.add(mapper.readValue(compressor.inflated(), 0, size, NetworkMessageDTO.class));
+            } else {
+                messages.add(mapper.readValue(body, NetworkMessageDTO.class));
+            }
         }
 
         return messages;
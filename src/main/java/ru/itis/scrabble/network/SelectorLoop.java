@@ -0,0 +1,352 @@
+package ru.itis.scrabble.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цикл селектора (reactor). Владеет своим подмножеством соединений:
+ * читает и разбирает кадры, а также дописывает очереди отправки своих сессий.
+ * Новые каналы передаются ему потоком-акцептором {@link NetworkServer}.
+ */
+class SelectorLoop implements Runnable {
+    // Как часто проверять простаивающие сессии и сколько простоя достаточно, чтобы забрать у них буфер
+    private static final long IDLE_SWEEP_MILLIS = 10_000;
+    private static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(
+            Long.getLong("scrabble.readBuffer.idleSeconds", 30));
+
+    private final NetworkServer server;
+    private final BufferPool bufferPool;
+    private final Selector selector;
+    private volatile boolean running;
+
+    // Мапа для хранения сессий этого цикла: Канал -> Сессия
+    private final Map<SocketChannel, ClientSession> sessions = new ConcurrentHashMap<>();
+
+    // Операции из других потоков применяются только потоком селектора
+    private final Queue<SocketChannel> pendingRegistrations = new ConcurrentLinkedQueue<>();
+    private final Queue<ClientSession> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final Queue<ClientSession> pendingCloses = new ConcurrentLinkedQueue<>();
+    private final Queue<ClientSession> pendingResumes = new ConcurrentLinkedQueue<>();
+
+    private byte[] scratch = new byte[4096];
+    // Пачка кадров для одной записи в сокет (gathering write); используется только потоком цикла
+    private final ByteBuffer[] writeBatch = new ByteBuffer[16];
+    private long lastSweep = System.currentTimeMillis();
+
+    SelectorLoop(NetworkServer server, BufferPool bufferPool) throws IOException {
+        this.server = server;
+        this.bufferPool = bufferPool;
+        this.selector = Selector.open();
+        this.running = true;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select(IDLE_SWEEP_MILLIS); // Ожидание событий
+                processPendingOperations();
+                sweepIdleSessions();
+
+                Set<SelectionKey> selectedKeys = selector.selectedKeys();
+                Iterator<SelectionKey> iter = selectedKeys.iterator();
+
+                while (iter.hasNext()) {
+                    SelectionKey key = iter.next();
+                    iter.remove();
+
+                    if (key.isValid() && key.isReadable()) {
+                        readMessage(key);
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        writeMessages(key);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            closeAll();
+        }
+    }
+
+    /**
+     * Передает принятый канал этому циклу. Регистрация в селекторе выполняется его потоком.
+     */
+    void register(SocketChannel channel) {
+        pendingRegistrations.add(channel);
+        selector.wakeup();
+    }
+
+    void requestWrite(ClientSession session) {
+        pendingWrites.add(session);
+        selector.wakeup();
+    }
+
+    /**
+     * Возобновляет чтение сессии, приостановленное из-за перегрузки полосы обработки.
+     */
+    void requestResume(ClientSession session) {
+        pendingResumes.add(session);
+        selector.wakeup();
+    }
+
+    void requestClose(ClientSession session) {
+        pendingCloses.add(session);
+        selector.wakeup();
+    }
+
+    void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    ByteBuffer[] writeBatch() {
+        return writeBatch;
+    }
+
+    ClientSession getSession(SocketChannel channel) {
+        return sessions.get(channel);
+    }
+
+    private void processPendingOperations() {
+        SocketChannel channel;
+        while ((channel = pendingRegistrations.poll()) != null) {
+            registerClient(channel);
+        }
+
+        ClientSession session;
+        while ((session = pendingWrites.poll()) != null) {
+            SelectionKey key = session.getChannel().keyFor(selector);
+            if (key != null && key.isValid()) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            }
+        }
+        while ((session = pendingCloses.poll()) != null) {
+            if (session.getChannel().isOpen()) {
+                disconnect(session.getChannel());
+            }
+        }
+        while ((session = pendingResumes.poll()) != null) {
+            SelectionKey key = session.getChannel().keyFor(selector);
+            if (!session.isReadPaused() || key == null || !key.isValid()) continue;
+            session.setReadPaused(false);
+            key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+            // Сначала передаем кадры, уже лежащие в буфере чтения
+            processBuffer(session);
+        }
+    }
+
+    private void registerClient(SocketChannel clientChannel) {
+        try {
+            clientChannel.configureBlocking(false);
+            clientChannel.register(selector, SelectionKey.OP_READ);
+            sessions.put(clientChannel, new ClientSession(clientChannel, this));
+            System.out.println("Новое подключение: " + clientChannel.getRemoteAddress()
+                    + " (" + Thread.currentThread().getName() + ")");
+        } catch (IOException e) {
+            System.err.println("Не удалось зарегистрировать подключение: " + e.getMessage());
+            try {
+                clientChannel.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    private void readMessage(SelectionKey key) {
+        SocketChannel channel = (SocketChannel) key.channel();
+        ClientSession session = sessions.get(channel);
+        if (session == null) return;
+        ByteBuffer buffer = session.acquireReadBuffer(bufferPool);
+
+        try {
+            int bytesRead = channel.read(buffer);
+            if (bytesRead == -1) {
+                disconnect(channel);
+                return;
+            }
+
+            processBuffer(session);
+
+        } catch (IOException e) {
+            disconnect(channel);
+        }
+    }
+
+    private void writeMessages(SelectionKey key) {
+        SocketChannel channel = (SocketChannel) key.channel();
+        ClientSession session = sessions.get(channel);
+        if (session == null) return;
+
+        try {
+            if (session.flush()) {
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            }
+        } catch (IOException e) {
+            disconnect(channel);
+        }
+    }
+
+    private void processBuffer(ClientSession session) {
+        ByteBuffer buffer = session.acquireReadBuffer(bufferPool);
+
+        buffer.flip();
+
+        while (true) {
+            if (buffer.remaining() < 4) {
+                break;
+            }
+
+            buffer.mark();
+            int header = buffer.getInt();
+            int payloadLength = header & ProtocolUtils.LENGTH_MASK;
+
+            // Sanity check to avoid invalid or malicious lengths
+            if (payloadLength <= 0 || payloadLength > BufferPool.MAX_BUFFER - 4) {
+                System.err.println("Protocol error: invalid payload length: " + payloadLength + " in session " + session.getSessionId());
+                disconnect(session.getChannel());
+                return;
+            }
+
+            if (buffer.remaining() < payloadLength) {
+                buffer.reset();
+                if (payloadLength > buffer.capacity() - 4) {
+                    // Кадр не помещается: переносим его начало в буфер большего класса
+                    session.growReadBuffer(bufferPool, payloadLength + 4);
+                    return;
+                }
+                break;
+            }
+
+            if ((header & ProtocolUtils.FLAG_ACCEPTS_COMPRESSED) != 0) {
+                session.enableCompression();
+            }
+
+            // Тело кадра отдается серверу прямо из буфера: в полосу обработки оно копируется
+            // сразу в ячейку полосы, а при обработке в цикле — в общий массив цикла
+            int start = buffer.position();
+            boolean accepted;
+            if ((header & ProtocolUtils.FLAG_COMPRESSED) != 0) {
+                try {
+                    accepted = handleCompressed(session, buffer, start, payloadLength);
+                } catch (IOException e) {
+                    System.err.println("Protocol error: " + e.getMessage() + " in session " + session.getSessionId());
+                    disconnect(session.getChannel());
+                    return;
+                }
+            } else if (buffer.hasArray()) {
+                accepted = server.handlePacket(session, buffer.array(), buffer.arrayOffset() + start, payloadLength);
+            } else if (server.hasWorkerLanes()) {
+                accepted = server.handlePacket(session, buffer, start, payloadLength);
+            } else {
+                byte[] body = scratch(payloadLength);
+                buffer.get(start, body, 0, payloadLength);
+                accepted = server.handlePacket(session, body, 0, payloadLength);
+            }
+            if (!accepted) {
+                // Полоса перегружена: кадр остается в буфере, а сокет не читается, пока она не разгрузится
+                buffer.reset();
+                pauseReads(session);
+                break;
+            }
+            buffer.position(start + payloadLength);
+        }
+
+        buffer.compact();
+        // Нет недочитанного кадра: увеличенный буфер сразу возвращается в пул
+        session.trimReadBuffer(IDLE_NANOS);
+    }
+
+    private void pauseReads(ClientSession session) {
+        SelectionKey key = session.getChannel().keyFor(selector);
+        if (key == null || !key.isValid()) return;
+        session.setReadPaused(true);
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+    }
+
+    /**
+     * Забирает буферы чтения у сессий, которые давно ничего не присылали:
+     * простаивающее соединение не держит ни одного буфера.
+     */
+    private void sweepIdleSessions() {
+        long now = System.currentTimeMillis();
+        if (now - lastSweep < IDLE_SWEEP_MILLIS) return;
+        lastSweep = now;
+        for (ClientSession session : sessions.values()) {
+            session.trimReadBuffer(IDLE_NANOS);
+        }
+    }
+
+    /**
+     * Распаковывает сжатый кадр контекстом сессии и передает его обработчику.
+     * @return false, если полоса перегружена и кадр нужно передать позже.
+     * @throws IOException если кадр поврежден.
+     */
+    private boolean handleCompressed(ClientSession session, ByteBuffer buffer, int start, int length) throws IOException {
+        byte[] data;
+        int offset;
+        if (buffer.hasArray()) {
+            data = buffer.array();
+            offset = buffer.arrayOffset() + start;
+        } else {
+            data = scratch(length);
+            buffer.get(start, data, 0, length);
+            offset = 0;
+        }
+        // Клиент, приславший сжатый кадр, сам умеет их распаковывать
+        FrameCompressor compressor = session.enableCompression();
+        int size = compressor.inflate(data, offset, length, ProtocolUtils.MAX_INFLATED_LENGTH);
+        return server.handlePacket(session, compressor.inflated(), 0, size);
+    }
+
+    /**
+     * Общий для цикла массив под тело кадра, когда кадр обрабатывается прямо в цикле
+     * или распаковывается: буферы чтения из пула прямые, а разбор идет по массиву.
+     */
+    private byte[] scratch(int length) {
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        return scratch;
+    }
+
+    private void disconnect(SocketChannel channel) {
+        ClientSession session = sessions.remove(channel);
+        try {
+            System.out.println("Клиент отключился: " + channel.getRemoteAddress());
+            // Канал закрывается до очистки очереди: кадр, поставленный после очистки,
+            // увидит закрытый канал и сам вернется в пул
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (session != null) {
+            session.clearOutbound();
+            session.releaseReadBuffer();
+        }
+    }
+
+    private void closeAll() {
+        for (SocketChannel channel : sessions.keySet()) {
+            disconnect(channel);
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package ru.itis.scrabble.network;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import javafx.application.Platform;
 import ru.itis.scrabble.controllers.BaseController;
 import ru.itis.scrabble.navigation.NavigationManager;
 import ru.itis.scrabble.dto.NetworkMessageDTO;
@@ -30,28 +29,29 @@ public class ServerMessageHandler {
         activeControllers.remove(controllerType);
     }
 
+    /**
+     * Вызывается в потоке JavaFX (сообщения доставляет {@link UiMessageDispatcher}).
+     */
     public void handleMessage(NetworkMessageDTO message) {
-        Platform.runLater(() -> {
-            try {
-                if (message == null) return;
+        try {
+            if (message == null) return;
 
-                MessageType type = message.type();
+            MessageType type = message.type();
 
-                switch (type) {
-                    case AUTH, AUTH_ERROR -> forwardToController("login", message);
-                    case AUTH_SUCCESS -> forwardToController("main-menu", message);
-                    case TURN_COMMIT, TILE_PREVIEW, SYNC_STATE, GAME_EVENT, HEARTBEAT -> forwardToController("game", message);
-                    case ERROR -> navigationManager.showError("Ошибка сервера", message.payload());
-                    default -> broadcastMessage(message);
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-                if (navigationManager != null) {
-                    navigationManager.showError("Ошибка обработки",
-                        "Ошибка при обработке сообщения сервера: " + e.getMessage());
-                }
+            switch (type) {
+                case AUTH, AUTH_ERROR -> forwardToController("login", message);
+                case AUTH_SUCCESS -> forwardToController("main-menu", message);
+                case TURN_COMMIT, TILE_PREVIEW, SYNC_STATE, SYNC_DELTA, GAME_EVENT, HEARTBEAT -> forwardToController("game", message);
+                case ERROR -> navigationManager.showError("Ошибка сервера", message.text());
+                default -> broadcastMessage(message);
             }
-        });
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (navigationManager != null) {
+                navigationManager.showError("Ошибка обработки",
+                    "Ошибка при обработке сообщения сервера: " + e.getMessage());
+            }
+        }
     }
 
     private void forwardToController(String controllerType, NetworkMessageDTO message) {
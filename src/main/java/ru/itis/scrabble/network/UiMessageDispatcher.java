@@ -0,0 +1,150 @@
+package ru.itis.scrabble.network;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import ru.itis.scrabble.dto.NetworkMessageDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Доставка сообщений сервера в поток JavaFX пачками, не чаще одной пачки за кадр.
+ * <p>
+ * Сетевые потоки только кладут сообщения в очередь. Разбирает ее {@link AnimationTimer},
+ * который JavaFX вызывает ровно раз за пульс (кадр): все, что накопилось к пульсу,
+ * доставляется одной пачкой. Таймер запускается, когда после простоя приходит первое
+ * сообщение (единственный {@code Platform.runLater} на всю серию), и останавливается
+ * на первом пульсе с пустой очередью, чтобы не будить JavaFX без сообщений.
+ * </p>
+ * <p>
+ * Внутри пачки устаревшие сообщения отбрасываются: из полных снимков (SYNC_STATE)
+ * и из предпросмотров (TILE_PREVIEW и результатов PREVIEW_*) остается последний.
+ * Дельты (SYNC_DELTA) доставляются все: снимок может не примениться, и тогда
+ * потерянный ход уже не восстановить, а дельта, уже учтенная снимком, контроллером
+ * пропускается по версии.
+ * </p>
+ */
+public class UiMessageDispatcher implements Consumer<NetworkMessageDTO> {
+    private static final String PREVIEW_RESULT_PREFIX = "PREVIEW_";
+
+    private final Consumer<NetworkMessageDTO> sink;
+    private final Queue<NetworkMessageDTO> inbox = new ConcurrentLinkedQueue<>();
+    // Пульсы запрошены (таймер запущен или запускается)
+    private final AtomicBoolean active = new AtomicBoolean(false);
+    private final Runnable startPulses;
+    private final Runnable stopPulses;
+
+    // Метрики
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong collapsed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    public UiMessageDispatcher(Consumer<NetworkMessageDTO> sink) {
+        this.sink = sink;
+        AnimationTimer timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                onPulse();
+            }
+        };
+        this.startPulses = () -> Platform.runLater(timer::start);
+        this.stopPulses = timer::stop;
+    }
+
+    /**
+     * Диспетчер с внешним источником пульсов: {@code startPulses} вызывается из любого потока,
+     * когда нужны пульсы, {@code stopPulses} — из {@link #onPulse()}, когда они больше не нужны.
+     */
+    UiMessageDispatcher(Consumer<NetworkMessageDTO> sink, Runnable startPulses, Runnable stopPulses) {
+        this.sink = sink;
+        this.startPulses = startPulses;
+        this.stopPulses = stopPulses;
+    }
+
+    /**
+     * Принимает сообщение из любого потока.
+     */
+    @Override
+    public void accept(NetworkMessageDTO message) {
+        if (message == null) return;
+        inbox.add(message);
+        received.incrementAndGet();
+        if (active.compareAndSet(false, true)) {
+            startPulses.run();
+        }
+    }
+
+    /**
+     * Один пульс JavaFX: доставляет накопившуюся пачку или, если очередь пуста, останавливает пульсы.
+     */
+    void onPulse() {
+        List<NetworkMessageDTO> batch = new ArrayList<>();
+        NetworkMessageDTO next;
+        while ((next = inbox.poll()) != null) {
+            batch.add(next);
+        }
+        if (batch.isEmpty()) {
+            active.set(false);
+            // Сообщение могло прийти после опроса очереди: тогда пульсы остаются нашими.
+            // Иначе новое сообщение запустит таймер заново уже после остановки
+            if (inbox.isEmpty() || !active.compareAndSet(false, true)) {
+                stopPulses.run();
+            }
+            return;
+        }
+        batches.incrementAndGet();
+        deliver(batch);
+    }
+
+    private void deliver(List<NetworkMessageDTO> batch) {
+        int lastState = -1;
+        int lastPreview = -1;
+        int lastPreviewResult = -1;
+        for (int i = 0; i < batch.size(); i++) {
+            NetworkMessageDTO message = batch.get(i);
+            if (message.type() == MessageType.SYNC_STATE) lastState = i;
+            else if (message.type() == MessageType.TILE_PREVIEW) lastPreview = i;
+            else if (isPreviewResult(message)) lastPreviewResult = i;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            NetworkMessageDTO message = batch.get(i);
+            MessageType type = message.type();
+            boolean superseded = (type == MessageType.SYNC_STATE && i != lastState)
+                    || (type == MessageType.TILE_PREVIEW && i != lastPreview)
+                    || (isPreviewResult(message) && i != lastPreviewResult);
+            if (superseded) {
+                collapsed.incrementAndGet();
+                continue;
+            }
+            try {
+                sink.accept(message);
+            } catch (Exception e) {
+                System.err.println("Ошибка при обработке сообщения " + type + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static boolean isPreviewResult(NetworkMessageDTO message) {
+        if (message.type() != MessageType.GAME_EVENT) return false;
+        String result = message.isStructured() ? message.event() : message.payload();
+        return result != null && result.startsWith(PREVIEW_RESULT_PREFIX);
+    }
+
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    public long getCollapsedCount() {
+        return collapsed.get();
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+}
@@ -9,5 +9,8 @@ public interface BoardService {
 
     boolean checkGeometry(List<TilePlacementDTO> newPlacements, Board board, boolean isFirstMove);
 
+    // Проверка геометрии и поиск слов без выделения памяти; результат нужно закрыть (вернуть в пул)
+    PlacementScan scan(List<TilePlacementDTO> newPlacements, Board board, boolean isFirstMove);
+
     Board createInitializedBoard();
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package ru.itis.scrabble.services;
+
+import ru.itis.scrabble.dto.TilePlacementDTO;
+import ru.itis.scrabble.models.Board;
+import ru.itis.scrabble.models.BotPlayer;
+import ru.itis.scrabble.models.Tile;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface BotService {
+
+    /**
+     * Ставит поиск хода бота в очередь пула. Поле не должно меняться, пока идет поиск
+     * (в ход бота его никто, кроме самого бота, не меняет).
+     * @param callback получает выбранный ход в потоке пула; пустой список — пас.
+     * @return false, если очередь пула переполнена и поиск не будет выполнен.
+     */
+    boolean requestMove(BotPlayer bot, Board board, List<Tile> rack, Consumer<List<TilePlacementDTO>> callback);
+
+    void shutdown();
+}
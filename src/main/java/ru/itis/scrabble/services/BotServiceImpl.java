@@ -0,0 +1,100 @@
+package ru.itis.scrabble.services;
+
+import ru.itis.scrabble.dto.MoveDTO;
+import ru.itis.scrabble.dto.TilePlacementDTO;
+import ru.itis.scrabble.models.Board;
+import ru.itis.scrabble.models.BotDifficulty;
+import ru.itis.scrabble.models.BotPlayer;
+import ru.itis.scrabble.models.Tile;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Поиск ходов ботов на отдельном ограниченном пуле потоков.
+ * <p>
+ * Перебор ходов занимает процессор на сотни миллисекунд, поэтому он не выполняется
+ * ни в потоках селектора, ни в акторах комнат: пул фиксированного размера с
+ * ограниченной очередью, а потоки имеют пониженный приоритет. Если очередь
+ * переполнена, запрос отклоняется и бот пасует — комнаты с людьми не ждут ботов.
+ * </p>
+ */
+public class BotServiceImpl implements BotService {
+    // Минимум времени на поиск, даже если запрос долго простоял в очереди
+    private static final long MIN_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private final MoveGenerator moveGenerator;
+    private final ExecutorService pool;
+
+    public BotServiceImpl(MoveGenerator moveGenerator, int threads, int queueCapacity) {
+        this.moveGenerator = moveGenerator;
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "bot-worker-" + counter.getAndIncrement());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+    }
+
+    @Override
+    public boolean requestMove(BotPlayer bot, Board board, List<Tile> rack, Consumer<List<TilePlacementDTO>> callback) {
+        long requestedAt = System.nanoTime();
+        long budget = TimeUnit.MILLISECONDS.toNanos(bot.getMoveBudgetMillis());
+        try {
+            pool.execute(() -> {
+                // Время ожидания в очереди входит в бюджет хода
+                long remaining = Math.max(MIN_BUDGET_NANOS, budget - (System.nanoTime() - requestedAt));
+                List<TilePlacementDTO> move = List.of();
+                try {
+                    move = chooseMove(moveGenerator.generateMoves(board, rack, remaining), bot.getDifficulty());
+                } catch (Exception e) {
+                    System.err.println("Ошибка при поиске хода бота " + bot.getUsername() + ": " + e.getMessage());
+                }
+                callback.accept(move);
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Выбирает ход по уровню сложности: случайный среди заданной доли лучших ходов,
+     * выкладывающих не больше допустимого числа фишек.
+     */
+    private List<TilePlacementDTO> chooseMove(List<MoveDTO> moves, BotDifficulty difficulty) {
+        List<MoveDTO> candidates = new ArrayList<>();
+        for (MoveDTO move : moves) {
+            if (move.placements().size() <= difficulty.getMaxTiles()) {
+                candidates.add(move);
+            }
+        }
+        if (candidates.isEmpty()) {
+            candidates.addAll(moves);
+        }
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        candidates.sort(Comparator.comparingInt(MoveDTO::score).reversed());
+        int bound = Math.max(1, (int) Math.ceil(candidates.size() * difficulty.getPickFrom()));
+        return candidates.get(ThreadLocalRandom.current().nextInt(bound)).placements();
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
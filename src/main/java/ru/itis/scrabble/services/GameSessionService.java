@@ -1,5 +1,6 @@
 package ru.itis.scrabble.services;
 
+import ru.itis.scrabble.models.BotDifficulty;
 import ru.itis.scrabble.models.Player;
 import ru.itis.scrabble.network.ClientSession;
 import ru.itis.scrabble.dto.TilePlacementDTO;
@@ -9,6 +10,10 @@ public interface GameSessionService {
 
     void startNewGame(int roomId, List<Player> players, List<ClientSession> sessions);
 
+    // Игра с ботами: к игрокам добавляются botCount ботов заданной сложности
+    void startNewGameWithBots(int roomId, List<Player> players, List<ClientSession> sessions,
+                              int botCount, BotDifficulty difficulty);
+
     boolean makeMove(int roomId, Long userId, List<TilePlacementDTO> placements);
 
     // Methods invoked by PacketHandler
@@ -19,4 +24,18 @@ public interface GameSessionService {
     void processPreview(ru.itis.scrabble.network.ClientSession session, List<TilePlacementDTO> placements);
 
     void handleHeartbeat(ru.itis.scrabble.network.ClientSession session);
+
+    // Полный снимок состояния по запросу клиента (например, после пропуска версии)
+    void sendFullState(ru.itis.scrabble.network.ClientSession session);
+
+    // Метрики почтовых ящиков активных комнат
+    List<RoomActor.Metrics> getRoomMetrics();
+
+    // Счетчики предпросмотров: получено, проверено, заменено более новыми, отложено ограничителем,
+    // а также попадания и промахи кэша результатов проверки
+    PreviewMetrics getPreviewMetrics();
+
+    record PreviewMetrics(long received, long processed, long dropped, long deferred,
+                          long cacheHits, long cacheMisses) {
+    }
 }
\ No newline at end of file
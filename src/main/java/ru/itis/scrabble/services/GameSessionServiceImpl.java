@@ -1,19 +1,24 @@
 package ru.itis.scrabble.services;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import ru.itis.scrabble.dto.NetworkMessageDTO;
+import ru.itis.scrabble.dto.ErrorDTO;
+import ru.itis.scrabble.dto.GameStateDeltaDTO;
+import ru.itis.scrabble.dto.MessageEnvelopeDTO;
+import ru.itis.scrabble.dto.TextDTO;
 import ru.itis.scrabble.dto.TilePlacementDTO;
 import ru.itis.scrabble.models.*;
 import ru.itis.scrabble.network.ClientSession;
 import ru.itis.scrabble.network.MessageType;
+import ru.itis.scrabble.network.PreviewGate;
 
-import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 public class GameSessionServiceImpl implements GameSessionService {
 
@@ -22,20 +27,33 @@ public class GameSessionServiceImpl implements GameSessionService {
     private final ScoringService scoringService;
     private final BagService bagService;
     private final UserService userService; // Добавлено для работы с БД пользователей
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BotService botService;
 
     private final Map<Integer, GameSession> games = new ConcurrentHashMap<>();
     private final Map<Integer, List<ClientSession>> roomSessions = new ConcurrentHashMap<>();
-    private final Map<Integer, java.util.concurrent.ExecutorService> roomExecutors = new ConcurrentHashMap<>();
+    private final Map<Integer, RoomActor> roomActors = new ConcurrentHashMap<>();
+    private final Map<Integer, PreviewCache> previewCaches = new ConcurrentHashMap<>();
+    // Общий исполнитель для почтовых ящиков всех комнат: по виртуальному потоку на разбор ящика
+    private final java.util.concurrent.ExecutorService roomRuntime = java.util.concurrent.Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("game-room-", 0).factory());
+
+    // Счетчики предпросмотров
+    private final LongAdder previewsReceived = new LongAdder();
+    private final LongAdder previewsProcessed = new LongAdder();
+    private final LongAdder previewsDropped = new LongAdder();
+    private final LongAdder previewsDeferred = new LongAdder();
+    private final LongAdder previewCacheHits = new LongAdder();
+    private final LongAdder previewCacheMisses = new LongAdder();
 
     public GameSessionServiceImpl(BoardService boardService, WordService wordService,
                                   ScoringService scoringService, BagService bagService,
-                                  UserService userService) {
+                                  UserService userService, BotService botService) {
         this.boardService = boardService;
         this.wordService = wordService;
         this.scoringService = scoringService;
         this.bagService = bagService;
         this.userService = userService;
+        this.botService = botService;
     }
 
     @Override
@@ -46,21 +64,29 @@ public class GameSessionServiceImpl implements GameSessionService {
             if (user != null) {
                 session.setUserId(user.getId());
                 session.setUsername(user.getUsername());
-                String payload = objectMapper.writeValueAsString(Map.of("userId", user.getId(), "username", user.getUsername()));
-                NetworkMessageDTO msg = new NetworkMessageDTO(ru.itis.scrabble.network.MessageType.AUTH, "AUTH_SUCCESS|" + payload, "SERVER");
-                session.sendMessage(msg);
+                session.send(MessageEnvelopeDTO.fromServer(MessageType.AUTH, "AUTH_SUCCESS",
+                        Map.of("userId", user.getId(), "username", user.getUsername())));
             } else {
-                NetworkMessageDTO err = new NetworkMessageDTO(ru.itis.scrabble.network.MessageType.ERROR, "AUTH_ERROR|Invalid credentials", "SERVER");
-                session.sendMessage(err);
+                session.send(MessageEnvelopeDTO.fromServer(MessageType.AUTH, "AUTH_ERROR", new TextDTO("Invalid credentials")));
             }
         } catch (Exception e) {
-            NetworkMessageDTO err = new NetworkMessageDTO(ru.itis.scrabble.network.MessageType.ERROR, "AUTH_ERROR|" + e.getMessage(), "SERVER");
-            session.sendMessage(err);
+            session.send(MessageEnvelopeDTO.fromServer(MessageType.AUTH, "AUTH_ERROR", new TextDTO(e.getMessage())));
         }
     }
 
     @Override
     public void startNewGame(int roomId, List<Player> players, List<ClientSession> sessions) {
+        if (players.isEmpty()) {
+            throw new IllegalArgumentException("В игре должен быть хотя бы один игрок");
+        }
+        // Комната занята, пока жив ее актор: он удаляется только по окончании игры.
+        // Актор занимает комнату до того, как в нее что-либо записано
+        RoomActor actor = new RoomActor(roomId, roomRuntime);
+        if (roomActors.putIfAbsent(roomId, actor) != null) {
+            actor.close();
+            throw new IllegalStateException("В комнате " + roomId + " уже идет игра");
+        }
+
         Board board = boardService.createInitializedBoard();
         Bag bag = bagService.fullBag();
 
@@ -73,16 +99,24 @@ public class GameSessionServiceImpl implements GameSessionService {
         games.put(roomId, game);
         roomSessions.put(roomId, new ArrayList<>(sessions));
 
-        // Create a single-thread executor for this room to serialize game state changes
-        java.util.concurrent.ExecutorService exec = java.util.concurrent.Executors.newSingleThreadExecutor(r -> {
-            Thread t = new Thread(r);
-            t.setName("game-room-" + roomId + "-executor");
-            t.setDaemon(true);
-            return t;
-        });
-        roomExecutors.put(roomId, exec);
+        // Актор комнаты (занят выше) сериализует изменения состояния игры без выделенного потока
+        previewCaches.put(roomId, new PreviewCache());
 
         broadcastGameState(roomId);
+        scheduleBotTurn(roomId);
+    }
+
+    @Override
+    public void startNewGameWithBots(int roomId, List<Player> players, List<ClientSession> sessions,
+                                     int botCount, BotDifficulty difficulty) {
+        if (botCount < 1) {
+            throw new IllegalArgumentException("Число ботов должно быть не меньше 1: " + botCount);
+        }
+        List<Player> all = new ArrayList<>(players);
+        for (int i = 0; i < botCount; i++) {
+            all.add(new BotPlayer(difficulty));
+        }
+        startNewGame(roomId, all, sessions);
     }
 
     @Override
@@ -93,60 +127,127 @@ public class GameSessionServiceImpl implements GameSessionService {
         Player currentPlayer = session.getCurrentPlayer();
 
         if (!currentPlayer.getUserId().equals(userId)) {
-            sendErrorMessage(roomId, userId, "Сейчас не ваш ход!");
+            sendErrorMessage(roomId, userId, "NOT_YOUR_TURN", "Сейчас не ваш ход!");
             return false;
         }
 
         boolean isFirstMove = session.getBoard().isEmpty();
-        if (!boardService.checkGeometry(placements, session.getBoard(), isFirstMove)) {
-            sendErrorMessage(roomId, userId, "Некорректное расположение фишек!");
-            return false;
-        }
-
-        List<List<TilePlacementDTO>> allWords = boardService.findAllWords(placements, session.getBoard());
-        if (!wordService.checkWords(allWords)) {
-            sendErrorMessage(roomId, userId, "Слова нет в словаре!");
-            return false;
+        int turnScore;
+        try (PlacementScan scan = boardService.scan(placements, session.getBoard(), isFirstMove)) {
+            if (!scan.isValid()) {
+                sendErrorMessage(roomId, userId, "INVALID_PLACEMENT", "Некорректное расположение фишек!");
+                return false;
+            }
+            if (!wordService.checkWords(scan)) {
+                sendErrorMessage(roomId, userId, "UNKNOWN_WORD", "Слова нет в словаре!");
+                return false;
+            }
+            turnScore = scoringService.countScore(scan);
         }
-
-        int turnScore = scoringService.countScore(placements, allWords, session.getBoard());
         currentPlayer.increaseScore(turnScore);
 
         for (TilePlacementDTO p : placements) {
             session.getBoard().setCell(p.x(), p.y(), p.tile());
         }
+        // Доска изменилась: прежние результаты предпросмотра больше не верны
+        PreviewCache previewCache = previewCaches.get(roomId);
+        if (previewCache != null) previewCache.invalidate();
 
         List<Tile> usedTiles = placements.stream().map(TilePlacementDTO::tile).toList();
         currentPlayer.removeTiles(usedTiles);
         currentPlayer.addTiles(bagService.takeTiles(session.getBag(), placements.size()));
 
+        session.resetPasses();
+
         // Проверка завершения игры
         if (session.getBag().isEmpty() && currentPlayer.getRack().isEmpty()) {
-            handleGameOver(roomId, session);
+            handleGameOver(roomId, session, currentPlayer, placements);
         } else {
             session.nextTurn();
-            broadcastGameState(roomId);
+            session.advanceVersion();
+            broadcastMoveDelta(roomId, session, currentPlayer, placements);
+            scheduleBotTurn(roomId);
         }
 
         return true;
     }
 
-    private void handleGameOver(int roomId, GameSession session) {
+    /**
+     * Если ход перешел к боту, запускает поиск его хода на пуле ботов.
+     * Найденный ход применяется уже в акторе комнаты, как и ходы людей.
+     */
+    private void scheduleBotTurn(int roomId) {
+        GameSession game = games.get(roomId);
+        if (game == null || game.isGameOver()) return;
+        if (!(game.getCurrentPlayer() instanceof BotPlayer bot)) return;
+
+        long version = game.getVersion();
+        boolean queued = botService.requestMove(bot, game.getBoard(), List.copyOf(bot.getRack()),
+                placements -> submitToRoom(roomId, () -> applyBotMove(roomId, bot, version, placements)));
+        if (!queued) {
+            // Пул ботов перегружен: бот пасует, чтобы не задерживать комнату
+            submitToRoom(roomId, () -> applyBotMove(roomId, bot, version, List.of()));
+        }
+    }
+
+    private void applyBotMove(int roomId, BotPlayer bot, long version, List<TilePlacementDTO> placements) {
+        GameSession game = games.get(roomId);
+        // Состояние изменилось, пока бот думал: ход устарел
+        if (game == null || game.isGameOver() || game.getVersion() != version || game.getCurrentPlayer() != bot) return;
+
+        if (placements.isEmpty() || !makeMove(roomId, bot.getUserId(), placements)) {
+            passTurn(roomId, game, bot);
+        }
+    }
+
+    private void passTurn(int roomId, GameSession game, Player player) {
+        player.increaseScore(0);
+        if (game.registerPass() >= game.getPlayers().size() * 2) {
+            handleGameOver(roomId, game, player, List.of());
+            return;
+        }
+        game.nextTurn();
+        game.advanceVersion();
+        broadcastMoveDelta(roomId, game, player, List.of());
+        scheduleBotTurn(roomId);
+    }
+
+    private void submitToRoom(int roomId, Runnable task) {
+        RoomActor actor = roomActors.get(roomId);
+        if (actor != null) {
+            actor.submit(task);
+        }
+    }
+
+    /**
+     * Завершает игру последним ходом {@code mover}: ход уходит клиентам обычной дельтой
+     * с {@code gameOver = true}, чтобы у всех оказались его фишки и итоговый счет.
+     */
+    private void handleGameOver(int roomId, GameSession session, Player mover, List<TilePlacementDTO> placements) {
         session.setGameOver(true);
-        broadcastGameState(roomId);
+        session.advanceVersion();
+        broadcastMoveDelta(roomId, session, mover, placements);
         List<Player> players = session.getPlayers();
         players.sort((o1, o2) -> o1.getScore() - o2.getScore());
-        userService.updateGames(players.getFirst().getUserId(), -1);
+        // У ботов нет записей в БД
+        if (!players.getFirst().isBot()) {
+            userService.updateGames(players.getFirst().getUserId(), -1);
+        }
         for (Player player: players) {
-            userService.updateGames(player.getUserId(), 0);
+            if (!player.isBot()) {
+                userService.updateGames(player.getUserId(), 0);
+            }
+        }
+        if (!players.getLast().isBot()) {
+            userService.updateGames(players.getLast().getUserId(), 1);
         }
-        userService.updateGames(players.getLast().getUserId(), 1);
 
-        // Shutdown room executor as game finished
-        java.util.concurrent.ExecutorService exec = roomExecutors.remove(roomId);
-        if (exec != null) {
-            exec.shutdownNow();
+        // Игра окончена: комната больше не принимает задачи
+        RoomActor actor = roomActors.remove(roomId);
+        if (actor != null) {
+            actor.close();
         }
+        previewCaches.remove(roomId);
     }
 
     private void broadcastGameState(int roomId) {
@@ -155,15 +256,52 @@ public class GameSessionServiceImpl implements GameSessionService {
 
         if (game == null || sessions == null) return;
 
-        try {
-            String gameStateJson = objectMapper.writeValueAsString(game);
-            NetworkMessageDTO syncMsg = new NetworkMessageDTO(MessageType.SYNC_STATE, gameStateJson, "SERVER");
+        // Кадр кодируется один раз на всю комнату (на каждую версию протокола)
+        ClientSession.broadcast(sessions, MessageEnvelopeDTO.fromServer(MessageType.SYNC_STATE, null, game));
+    }
+
+    /**
+     * Рассылает изменения после хода вместо полного снимка.
+     * Новая стойка фишек уходит только игроку, сделавшему ход.
+     */
+    private void broadcastMoveDelta(int roomId, GameSession game, Player mover, List<TilePlacementDTO> placements) {
+        List<ClientSession> sessions = roomSessions.get(roomId);
+        if (sessions == null) return;
+
+        Long currentPlayerId = game.getCurrentPlayer().getUserId();
+        int bagCount = game.getBag().getRemainingCount();
+
+        int bonus = ScoringService.bingoBonus(placements.size());
 
-            for (ClientSession session : sessions) {
-                session.sendMessage(syncMsg);
+        GameStateDeltaDTO publicDelta = new GameStateDeltaDTO(game.getVersion(), mover.getUserId(), placements,
+                mover.getScore(), mover.getLastPoints(), bonus, null, bagCount, currentPlayerId, game.isGameOver());
+        GameStateDeltaDTO moverDelta = new GameStateDeltaDTO(game.getVersion(), mover.getUserId(), placements,
+                mover.getScore(), mover.getLastPoints(), bonus, List.copyOf(mover.getRack()), bagCount, currentPlayerId, game.isGameOver());
+
+        List<ClientSession> others = new ArrayList<>();
+        for (ClientSession s : sessions) {
+            if (mover.getUserId().equals(s.getUserId())) {
+                s.send(MessageEnvelopeDTO.fromServer(MessageType.SYNC_DELTA, null, moverDelta));
+            } else {
+                others.add(s);
             }
-        } catch (IOException e) {
-            System.err.println("Ошибка при рассылке состояния игры: " + e.getMessage());
+        }
+        ClientSession.broadcast(others, MessageEnvelopeDTO.fromServer(MessageType.SYNC_DELTA, null, publicDelta));
+    }
+
+    @Override
+    public void sendFullState(ClientSession session) {
+        int roomId = session.getRoomId();
+        RoomActor actor = roomActors.get(roomId);
+        Runnable task = () -> {
+            GameSession game = games.get(roomId);
+            if (game == null) return;
+            session.send(MessageEnvelopeDTO.fromServer(MessageType.SYNC_STATE, null, game));
+        };
+
+        // Снимок снимается в потоке комнаты, чтобы не попасть на середину хода
+        if (actor == null || !actor.submit(task)) {
+            task.run();
         }
     }
 
@@ -172,80 +310,127 @@ public class GameSessionServiceImpl implements GameSessionService {
         int roomId = session.getRoomId();
         Long userId = session.getUserId();
 
-        java.util.concurrent.ExecutorService exec = roomExecutors.get(roomId);
-        if (exec == null) {
-            // No executor available, fallback to immediate execution
+        Runnable task = () -> {
             boolean ok = makeMove(roomId, userId, placements);
-            try {
-                if (ok) session.sendMessage(new NetworkMessageDTO(ru.itis.scrabble.network.MessageType.GAME_EVENT, "MOVE_ACCEPTED|{}", "SERVER"));
-                else session.sendMessage(new NetworkMessageDTO(ru.itis.scrabble.network.MessageType.ERROR, "MOVE_REJECTED|Move invalid", "SERVER"));
-            } catch (Exception e) {
-                System.err.println("Error sending commit response: " + e.getMessage());
+            if (ok) {
+                session.send(MessageEnvelopeDTO.fromServer(MessageType.GAME_EVENT, "MOVE_ACCEPTED", null));
+            } else {
+                session.send(MessageEnvelopeDTO.fromServer(MessageType.ERROR, "MOVE_REJECTED", new ErrorDTO("MOVE_REJECTED", "Move invalid")));
             }
-            return;
+        };
+
+        // Ход ставится в почтовый ящик комнаты, чтобы изменения выполнялись по одному
+        RoomActor actor = roomActors.get(roomId);
+        if (actor == null || !actor.submit(task)) {
+            // No actor available, fallback to immediate execution
+            task.run();
         }
+    }
 
-        // Submit the move to the room executor to serialize modifications
-        exec.submit(() -> {
-            boolean ok = makeMove(roomId, userId, placements);
-            try {
-                if (ok) {
-                    session.sendMessage(new NetworkMessageDTO(ru.itis.scrabble.network.MessageType.GAME_EVENT, "MOVE_ACCEPTED|{}", "SERVER"));
-                } else {
-                    session.sendMessage(new NetworkMessageDTO(ru.itis.scrabble.network.MessageType.ERROR, "MOVE_REJECTED|Move invalid", "SERVER"));
-                }
-            } catch (Exception e) {
-                System.err.println("Error sending commit response: " + e.getMessage());
-            }
-        });
+    @Override
+    public List<RoomActor.Metrics> getRoomMetrics() {
+        return roomActors.values().stream().map(RoomActor::getMetrics).toList();
     }
 
+    /**
+     * Предпросмотр не проверяется сразу: он кладется в слот сессии, заменяя еще не
+     * проверенный, а проверка последнего выполняется в акторе комнаты не чаще, чем
+     * позволяет ограничитель сессии ({@link PreviewGate}).
+     */
     @Override
     public void processPreview(ClientSession session, List<TilePlacementDTO> placements) {
+        previewsReceived.increment();
+        if (session.getPreviewGate().offer(placements)) {
+            // Проверка уже запланирована и возьмет этот, более новый предпросмотр
+            previewsDropped.increment();
+            return;
+        }
+        schedulePreview(session);
+    }
+
+    private void schedulePreview(ClientSession session) {
+        long wait = session.getPreviewGate().tryAcquire();
+        if (wait > 0) {
+            // Лимит исчерпан: повторим, когда появится токен; новые предпросмотры тем временем заменяют ожидающий
+            previewsDeferred.increment();
+            CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS).execute(() -> schedulePreview(session));
+            return;
+        }
+
+        Runnable task = () -> validatePreview(session);
+        RoomActor actor = roomActors.get(session.getRoomId());
+        if (actor == null || !actor.submit(task)) {
+            task.run();
+        }
+    }
+
+    private void validatePreview(ClientSession session) {
+        List<TilePlacementDTO> placements = session.getPreviewGate().take();
+        if (placements == null) return;
+        previewsProcessed.increment();
+
         int roomId = session.getRoomId();
         GameSession gs = games.get(roomId);
         if (gs == null) return;
 
         try {
-            boolean isFirstMove = gs.getBoard().isEmpty();
-            boolean geometryOk = boardService.checkGeometry(placements, gs.getBoard(), isFirstMove);
-            if (!geometryOk) {
-                session.sendMessage(new NetworkMessageDTO(ru.itis.scrabble.network.MessageType.GAME_EVENT, "PREVIEW_INVALID|Geometry", "SERVER"));
-                return;
+            PreviewCache cache = previewCaches.get(roomId);
+            PreviewCache.Key key = cache != null ? PreviewCache.keyOf(gs.getVersion(), placements) : null;
+            PreviewCache.Verdict verdict = key != null ? cache.get(key) : null;
+            if (verdict != null) {
+                previewCacheHits.increment();
+            } else {
+                previewCacheMisses.increment();
+                verdict = checkPreview(gs, placements);
+                if (key != null) cache.put(key, verdict);
             }
 
-            List<List<TilePlacementDTO>> allWords = boardService.findAllWords(placements, gs.getBoard());
-            if (!wordService.checkWords(allWords)) {
-                session.sendMessage(new NetworkMessageDTO(ru.itis.scrabble.network.MessageType.GAME_EVENT, "PREVIEW_INVALID|Word not in dictionary", "SERVER"));
-                return;
+            switch (verdict) {
+                case OK -> session.send(MessageEnvelopeDTO.fromServer(MessageType.GAME_EVENT, "PREVIEW_OK", null));
+                case INVALID_GEOMETRY -> session.send(MessageEnvelopeDTO.fromServer(MessageType.GAME_EVENT, "PREVIEW_INVALID", new TextDTO("Geometry")));
+                case UNKNOWN_WORD -> session.send(MessageEnvelopeDTO.fromServer(MessageType.GAME_EVENT, "PREVIEW_INVALID", new TextDTO("Word not in dictionary")));
             }
-
-            session.sendMessage(new NetworkMessageDTO(ru.itis.scrabble.network.MessageType.GAME_EVENT, "PREVIEW_OK|{}", "SERVER"));
         } catch (Exception e) {
             // ignore preview errors quietly
         }
     }
 
+    private PreviewCache.Verdict checkPreview(GameSession gs, List<TilePlacementDTO> placements) {
+        boolean isFirstMove = gs.getBoard().isEmpty();
+        try (PlacementScan scan = boardService.scan(placements, gs.getBoard(), isFirstMove)) {
+            if (!scan.isValid()) {
+                return PreviewCache.Verdict.INVALID_GEOMETRY;
+            }
+            if (!wordService.checkWords(scan)) {
+                return PreviewCache.Verdict.UNKNOWN_WORD;
+            }
+            return PreviewCache.Verdict.OK;
+        }
+    }
+
+    @Override
+    public PreviewMetrics getPreviewMetrics() {
+        return new PreviewMetrics(previewsReceived.sum(), previewsProcessed.sum(),
+                previewsDropped.sum(), previewsDeferred.sum(), previewCacheHits.sum(), previewCacheMisses.sum());
+    }
+
     @Override
     public void handleHeartbeat(ClientSession session) {
         try {
-            session.sendMessage(new NetworkMessageDTO(ru.itis.scrabble.network.MessageType.HEARTBEAT, "HEARTBEAT_ACK|{}", "SERVER"));
+            session.send(MessageEnvelopeDTO.fromServer(MessageType.HEARTBEAT, "HEARTBEAT_ACK", null));
         } catch (Exception e) {
             // ignore
         }
     }
 
-    private void sendErrorMessage(int roomId, Long userId, String errorText) {
+    private void sendErrorMessage(int roomId, Long userId, String code, String errorText) {
         List<ClientSession> sessions = roomSessions.get(roomId);
         if (sessions == null) return;
 
         sessions.stream()
                 .filter(s -> userId.equals(s.getUserId()))
                 .findFirst()
-                .ifPresent(s -> {
-                    NetworkMessageDTO msg = new NetworkMessageDTO(MessageType.ERROR, errorText, "SERVER");
-                    s.sendMessage(msg);
-                });
+                .ifPresent(s -> s.send(MessageEnvelopeDTO.fromServer(MessageType.ERROR, null, new ErrorDTO(code, errorText))));
     }
 
     /**
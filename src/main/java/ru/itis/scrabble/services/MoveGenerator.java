@@ -0,0 +1,22 @@
+package ru.itis.scrabble.services;
+
+import ru.itis.scrabble.dto.MoveDTO;
+import ru.itis.scrabble.models.Board;
+import ru.itis.scrabble.models.Tile;
+
+import java.util.List;
+
+public interface MoveGenerator {
+
+    /**
+     * Перечисляет все допустимые ходы для стойки фишек на текущем поле.
+     * Каждый ход проходит проверки BoardService и оценен по правилам ScoringService.
+     */
+    List<MoveDTO> generateMoves(Board board, List<Tile> rack);
+
+    /**
+     * То же, но перебор прекращается по истечении {@code budgetNanos}:
+     * возвращаются ходы, найденные к этому моменту.
+     */
+    List<MoveDTO> generateMoves(Board board, List<Tile> rack, long budgetNanos);
+}
@@ -0,0 +1,321 @@
+package ru.itis.scrabble.services;
+
+import ru.itis.scrabble.dto.MoveDTO;
+import ru.itis.scrabble.dto.TilePlacementDTO;
+import ru.itis.scrabble.models.Board;
+import ru.itis.scrabble.models.Tile;
+import ru.itis.scrabble.util.DictUtil;
+import ru.itis.scrabble.util.Gaddag;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Генератор ходов на основе GADDAG (алгоритм Гордона).
+ * <p>
+ * Поле просматривается по строкам, затем по столбцам (через транспонированную копию).
+ * Ход начинается с клетки-якоря (пустая клетка рядом с фишкой или центр пустого поля),
+ * растет влево, а после разделителя GADDAG — вправо. Перпендикулярные слова
+ * заранее сведены в маски допустимых букв (cross-checks) для каждой клетки.
+ * Очки считаются по ходу перебора по тем же правилам, что и в {@link ScoringServiceImpl}.
+ * </p>
+ */
+public class MoveGeneratorImpl implements MoveGenerator {
+    private static final int SIZE = Board.SIZE;
+    private static final int CENTER = SIZE / 2;
+    private static final int ALPHABET = Gaddag.SEPARATOR;
+    private static final int ALL_LETTERS = (1 << ALPHABET) - 1;
+    private static final int RACK_SIZE = ScoringService.RACK_SIZE;
+    // Как часто (в вызовах gen) сверяться с часами при ограниченном времени перебора
+    private static final int DEADLINE_CHECK_MASK = 1023;
+
+    // Фишка и ее стоимость по номеру буквы (порядок Tile не алфавитный)
+    private static final Tile[] TILE_BY_LETTER = new Tile[ALPHABET];
+    private static final int[] POINTS = new int[ALPHABET];
+
+    static {
+        for (Tile tile : Tile.values()) {
+            int letter = tile.getLetter() - 'A';
+            TILE_BY_LETTER[letter] = tile;
+            POINTS[letter] = tile.getPoints();
+        }
+    }
+
+    private final Supplier<Gaddag> gaddag;
+
+    /**
+     * Генератор на общем GADDAG из {@link DictUtil}: граф загружается
+     * при первом запросе хода, а не при старте сервера.
+     */
+    public MoveGeneratorImpl() {
+        this(DictUtil::getGaddag);
+    }
+
+    public MoveGeneratorImpl(Gaddag gaddag) {
+        this(() -> gaddag);
+    }
+
+    private MoveGeneratorImpl(Supplier<Gaddag> gaddag) {
+        this.gaddag = gaddag;
+    }
+
+    @Override
+    public List<MoveDTO> generateMoves(Board board, List<Tile> rack) {
+        return generateMoves(board, rack, Long.MAX_VALUE);
+    }
+
+    @Override
+    public List<MoveDTO> generateMoves(Board board, List<Tile> rack, long budgetNanos) {
+        List<MoveDTO> moves = new ArrayList<>();
+        if (rack.isEmpty()) return moves;
+
+        long now = System.nanoTime();
+        long deadline = budgetNanos >= Long.MAX_VALUE - now ? Long.MAX_VALUE : now + budgetNanos;
+        Generation generation = new Generation(board, rack, moves, deadline);
+        generation.run(true);
+        generation.run(false);
+        return moves;
+    }
+
+    /**
+     * Состояние одного вызова генерации. Массивы индексируются {@code line * 15 + pos},
+     * где для горизонтального прохода line = y, pos = x, а для вертикального наоборот.
+     */
+    private final class Generation {
+        private final Gaddag gaddag = MoveGeneratorImpl.this.gaddag.get();
+        private final Board board;
+        private final boolean emptyBoard;
+        private final List<MoveDTO> moves;
+        private final int[] rack = new int[ALPHABET];
+        private final int rackSize;
+
+        private final int[] grid = new int[Board.CELL_COUNT];      // номер буквы + 1, 0 - пусто
+        private final int[] crossMask = new int[Board.CELL_COUNT]; // допустимые буквы по перпендикуляру
+        private final int[] crossScore = new int[Board.CELL_COUNT]; // очки перпендикулярных фишек, -1 - их нет
+        private final boolean[] anchor = new boolean[Board.CELL_COUNT];
+
+        private final int[] placedPos = new int[RACK_SIZE];
+        private final int[] placedLetter = new int[RACK_SIZE];
+        private int placedCount;
+        private boolean horizontal;
+
+        private final long deadline;
+        private int steps;
+        private boolean timedOut;
+
+        Generation(Board board, List<Tile> tiles, List<MoveDTO> moves, long deadline) {
+            this.board = board;
+            this.deadline = deadline;
+            this.emptyBoard = board.isEmpty();
+            this.moves = moves;
+            for (Tile tile : tiles) {
+                rack[tile.getLetter() - 'A']++;
+            }
+            this.rackSize = Math.min(tiles.size(), RACK_SIZE);
+        }
+
+        void run(boolean horizontal) {
+            if (timedOut) return;
+            this.horizontal = horizontal;
+            prepare();
+            for (int line = 0; line < SIZE; line++) {
+                for (int pos = 0; pos < SIZE; pos++) {
+                    if (anchor[line * SIZE + pos]) {
+                        gen(line, pos, pos, pos, Gaddag.ROOT, 0, 1, 0);
+                    }
+                }
+            }
+        }
+
+        private int boardX(int line, int pos) {
+            return horizontal ? pos : line;
+        }
+
+        private int boardY(int line, int pos) {
+            return horizontal ? line : pos;
+        }
+
+        private void prepare() {
+            for (int line = 0; line < SIZE; line++) {
+                for (int pos = 0; pos < SIZE; pos++) {
+                    Tile tile = board.getTile(boardX(line, pos), boardY(line, pos));
+                    grid[line * SIZE + pos] = tile == null ? 0 : tile.getLetter() - 'A' + 1;
+                }
+            }
+
+            for (int line = 0; line < SIZE; line++) {
+                for (int pos = 0; pos < SIZE; pos++) {
+                    int sq = line * SIZE + pos;
+                    if (grid[sq] != 0) {
+                        anchor[sq] = false;
+                        continue;
+                    }
+                    anchor[sq] = emptyBoard
+                            ? line == CENTER && pos == CENTER
+                            : occupied(line - 1, pos) || occupied(line + 1, pos)
+                              || occupied(line, pos - 1) || occupied(line, pos + 1);
+                    computeCrossCheck(line, pos, sq);
+                }
+            }
+        }
+
+        private boolean occupied(int line, int pos) {
+            return line >= 0 && line < SIZE && pos >= 0 && pos < SIZE && grid[line * SIZE + pos] != 0;
+        }
+
+        /**
+         * Маска букв, которые можно поставить в клетку так, чтобы перпендикулярное слово
+         * (соседние строки в том же столбце прохода) было в словаре.
+         */
+        private void computeCrossCheck(int line, int pos, int sq) {
+            int top = line;
+            while (occupied(top - 1, pos)) top--;
+            int bottom = line;
+            while (occupied(bottom + 1, pos)) bottom++;
+
+            if (top == line && bottom == line) {
+                crossMask[sq] = ALL_LETTERS;
+                crossScore[sq] = -1;
+                return;
+            }
+
+            int score = 0;
+            for (int l = top; l <= bottom; l++) {
+                if (l != line) score += POINTS[grid[l * SIZE + pos] - 1];
+            }
+            crossScore[sq] = score;
+
+            // Путь в GADDAG: буква клетки, верхняя часть снизу вверх, разделитель, нижняя часть
+            int mask = 0;
+            for (int i = Gaddag.ROOT; ; i++) {
+                int edge = gaddag.edgeAt(i);
+                if (Gaddag.symbol(edge) != Gaddag.SEPARATOR && crossWordExists(edge, line, pos, top, bottom)) {
+                    mask |= 1 << Gaddag.symbol(edge);
+                }
+                if (Gaddag.isLast(edge)) break;
+            }
+            crossMask[sq] = mask;
+        }
+
+        private boolean crossWordExists(int edge, int line, int pos, int top, int bottom) {
+            for (int l = line - 1; l >= top; l--) {
+                edge = gaddag.findEdge(Gaddag.target(edge), grid[l * SIZE + pos] - 1);
+                if (edge == 0) return false;
+            }
+            if (bottom == line) {
+                return Gaddag.isTerminal(edge);
+            }
+            edge = gaddag.findEdge(Gaddag.target(edge), Gaddag.SEPARATOR);
+            for (int l = line + 1; l <= bottom && edge != 0; l++) {
+                edge = gaddag.findEdge(Gaddag.target(edge), grid[l * SIZE + pos] - 1);
+            }
+            return edge != 0 && Gaddag.isTerminal(edge);
+        }
+
+        /**
+         * Пытается продолжить слово клеткой {@code pos}: существующей фишкой или буквой со стойки.
+         */
+        private void gen(int line, int anchorPos, int pos, int start, int node,
+                         int mainSum, int wordMult, int crossTotal) {
+            if (node == 0 || timedOut) return;
+            if ((++steps & DEADLINE_CHECK_MASK) == 0 && deadline != Long.MAX_VALUE && System.nanoTime() > deadline) {
+                timedOut = true;
+                return;
+            }
+            int sq = line * SIZE + pos;
+
+            if (grid[sq] != 0) {
+                int letter = grid[sq] - 1;
+                int edge = gaddag.findEdge(node, letter);
+                if (edge != 0) {
+                    goOn(line, anchorPos, pos, start, edge, mainSum + POINTS[letter], wordMult, crossTotal);
+                }
+                return;
+            }
+            if (placedCount == rackSize) return;
+
+            int cell = Board.index(boardX(line, pos), boardY(line, pos));
+            int letterMult = Board.letterMultiplier(cell);
+            int squareWordMult = Board.wordMultiplier(cell);
+            int mask = crossMask[sq];
+
+            for (int i = node; ; i++) {
+                int edge = gaddag.edgeAt(i);
+                int letter = Gaddag.symbol(edge);
+                if (letter != Gaddag.SEPARATOR && rack[letter] > 0 && (mask & (1 << letter)) != 0) {
+                    int letterPoints = POINTS[letter] * letterMult;
+                    int cross = crossScore[sq] < 0 ? 0 : (crossScore[sq] + letterPoints) * squareWordMult;
+
+                    rack[letter]--;
+                    placedPos[placedCount] = pos;
+                    placedLetter[placedCount] = letter;
+                    placedCount++;
+
+                    goOn(line, anchorPos, pos, start, edge,
+                            mainSum + letterPoints, wordMult * squareWordMult, crossTotal + cross);
+
+                    placedCount--;
+                    rack[letter]++;
+                }
+                if (Gaddag.isLast(edge)) break;
+            }
+        }
+
+        private void goOn(int line, int anchorPos, int pos, int start, int edge,
+                          int mainSum, int wordMult, int crossTotal) {
+            int node = Gaddag.target(edge);
+
+            if (pos <= anchorPos) {
+                // Фаза роста влево от якоря
+                boolean leftEmpty = !occupied(line, pos - 1);
+                if (Gaddag.isTerminal(edge) && leftEmpty && !occupied(line, anchorPos + 1)) {
+                    record(line, pos, anchorPos, mainSum * wordMult + crossTotal);
+                }
+                if (node == 0) return;
+
+                // Пустые якоря левее текущего не занимаем: такие ходы найдет их собственный перебор
+                if (pos > 0 && (occupied(line, pos - 1) || !anchor[line * SIZE + pos - 1])) {
+                    gen(line, anchorPos, pos - 1, pos - 1, node, mainSum, wordMult, crossTotal);
+                }
+                int separator = gaddag.findEdge(node, Gaddag.SEPARATOR);
+                if (separator != 0 && leftEmpty && anchorPos + 1 < SIZE) {
+                    gen(line, anchorPos, anchorPos + 1, pos, Gaddag.target(separator), mainSum, wordMult, crossTotal);
+                }
+            } else {
+                // Фаза роста вправо после разделителя
+                if (Gaddag.isTerminal(edge) && !occupied(line, pos + 1)) {
+                    record(line, start, pos, mainSum * wordMult + crossTotal);
+                }
+                if (node != 0 && pos + 1 < SIZE) {
+                    gen(line, anchorPos, pos + 1, start, node, mainSum, wordMult, crossTotal);
+                }
+            }
+        }
+
+        private void record(int line, int start, int end, int score) {
+            // Однобуквенное слово BoardService проверяет только на первом ходу (его находит горизонтальный проход)
+            if (end == start && !(emptyBoard && horizontal)) return;
+
+            // Одиночную фишку с горизонтальными соседями уже нашел горизонтальный проход
+            if (!horizontal && placedCount == 1 && crossScore[line * SIZE + placedPos[0]] >= 0) return;
+
+            TilePlacementDTO[] placements = new TilePlacementDTO[placedCount];
+            for (int i = 0; i < placedCount; i++) {
+                int pos = placedPos[i];
+                int j = i;
+                // Вставками упорядочиваем фишки по позиции в слове
+                while (j > 0 && placedPosOf(placements[j - 1]) > pos) {
+                    placements[j] = placements[j - 1];
+                    j--;
+                }
+                placements[j] = new TilePlacementDTO(TILE_BY_LETTER[placedLetter[i]], boardX(line, pos), boardY(line, pos));
+            }
+            moves.add(new MoveDTO(List.of(placements), score + ScoringService.bingoBonus(placedCount)));
+        }
+
+        private int placedPosOf(TilePlacementDTO placement) {
+            return horizontal ? placement.x() : placement.y();
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package ru.itis.scrabble.services;
+
+import ru.itis.scrabble.dto.TilePlacementDTO;
+import ru.itis.scrabble.models.Board;
+import ru.itis.scrabble.models.Tile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Разбор выкладки фишек без выделения памяти: проверка геометрии и поиск всех
+ * образованных слов.
+ * <p>
+ * Новые фишки накладываются на доску через рабочую сетку {@link #overlay}, а слова
+ * возвращаются как отрезки клеток: начальная клетка, шаг (1 — по горизонтали,
+ * {@link Board#SIZE} — по вертикали) и длина. Буквы и признак новой фишки читаются
+ * по номеру слова и позиции в нем. Клетки новых фишек также отмечены в 225-битной маске.
+ * </p>
+ * <p>
+ * Экземпляры берутся из небольшого пула ({@link BoardService#scan}) и возвращаются
+ * в него через {@link #close()}; результат действителен до закрытия. Экземпляр
+ * не потокобезопасен.
+ * </p>
+ */
+public final class PlacementScan implements AutoCloseable {
+    private static final int CENTER = Board.index(Board.SIZE / 2, Board.SIZE / 2);
+    private static final Tile[] TILES = Tile.values();
+    // Главное слово и по одному поперечному на каждую фишку
+    private static final int MAX_WORDS = Board.SIZE + 1;
+    private static final ArrayBlockingQueue<PlacementScan> POOL = new ArrayBlockingQueue<>(64);
+
+    private final byte[] overlay = new byte[Board.CELL_COUNT]; // ordinal() + 1 новой фишки, 0 — нет
+    private final long[] newMask = new long[(Board.CELL_COUNT + 63) / 64];
+    private final int[] placed = new int[Board.SIZE];           // клетки новых фишек в порядке выкладки
+    private int placedCount;
+
+    private final int[] wordStart = new int[MAX_WORDS];
+    private final int[] wordStep = new int[MAX_WORDS];
+    private final int[] wordLength = new int[MAX_WORDS];
+    private int wordCount;
+
+    private final char[] letters = new char[Board.SIZE];
+    private Board board;
+    private boolean valid;
+
+    private PlacementScan() {
+    }
+
+    static PlacementScan acquire() {
+        PlacementScan scan = POOL.poll();
+        return scan != null ? scan : new PlacementScan();
+    }
+
+    /**
+     * Проверяет геометрию выкладки и, если она допустима, находит все образованные слова.
+     * Правила те же, что у {@link BoardService#checkGeometry}; дополнительно отклоняются
+     * фишки на занятых клетках и две фишки на одной клетке.
+     */
+    PlacementScan scan(List<TilePlacementDTO> placements, Board board, boolean isFirstMove) {
+        valid = load(placements, board) && checkGeometry(isFirstMove);
+        if (valid) {
+            collectWords();
+        }
+        return this;
+    }
+
+    /**
+     * Только поиск слов, без проверки геометрии (как {@link BoardService#findAllWords}).
+     */
+    PlacementScan words(List<TilePlacementDTO> placements, Board board) {
+        valid = load(placements, board);
+        if (placedCount > 0) {
+            collectWords();
+        }
+        return this;
+    }
+
+    /**
+     * Накладывает новые фишки на рабочую сетку.
+     * @return false, если фишек нет или слишком много, есть фишка вне доски, на занятой клетке или повтор клетки.
+     */
+    private boolean load(List<TilePlacementDTO> placements, Board board) {
+        reset();
+        this.board = board;
+        int count = placements.size();
+        boolean sane = count > 0 && count <= Board.SIZE;
+        for (int i = 0; i < count && placedCount < placed.length; i++) {
+            TilePlacementDTO p = placements.get(i);
+            if (p.tile() == null || !Board.inBounds(p.x(), p.y())) {
+                sane = false;
+                continue;
+            }
+            int cell = Board.index(p.x(), p.y());
+            if (overlay[cell] != 0 || board.codeAt(cell) != 0) {
+                // Первая из повторных фишек остается на сетке, как и раньше
+                sane = false;
+                if (overlay[cell] != 0) continue;
+            }
+            overlay[cell] = (byte) (p.tile().ordinal() + 1);
+            newMask[cell >>> 6] |= 1L << cell;
+            placed[placedCount++] = cell;
+        }
+        return sane;
+    }
+
+    private boolean checkGeometry(boolean isFirstMove) {
+        int first = placed[0];
+        int row = first / Board.SIZE;
+        int column = first % Board.SIZE;
+        boolean sameRow = true;
+        boolean sameColumn = true;
+        boolean hasCenter = false;
+        boolean connected = false;
+        for (int i = 0; i < placedCount; i++) {
+            int cell = placed[i];
+            sameRow &= cell / Board.SIZE == row;
+            sameColumn &= cell % Board.SIZE == column;
+            hasCenter |= cell == CENTER;
+            connected = connected || hasOldNeighbour(cell);
+        }
+        if (!sameRow && !sameColumn) return false;
+        if (isFirstMove ? !hasCenter : !connected) return false;
+
+        // Все новые фишки должны входить в одно непрерывное слово вдоль линии выкладки
+        int step = sameRow ? 1 : Board.SIZE;
+        int start = runStart(first, step);
+        int end = start + (runLength(start, step) - 1) * step;
+        for (int i = 0; i < placedCount; i++) {
+            if (placed[i] < start || placed[i] > end) return false;
+        }
+        return true;
+    }
+
+    private boolean hasOldNeighbour(int cell) {
+        int x = cell % Board.SIZE;
+        return (x > 0 && board.codeAt(cell - 1) != 0)
+                || (x < Board.SIZE - 1 && board.codeAt(cell + 1) != 0)
+                || (cell >= Board.SIZE && board.codeAt(cell - Board.SIZE) != 0)
+                || (cell < Board.CELL_COUNT - Board.SIZE && board.codeAt(cell + Board.SIZE) != 0);
+    }
+
+    private void collectWords() {
+        // Одиночная фишка сначала рассматривается как начало горизонтального слова
+        boolean horizontal = placedCount < 2 || placed[0] / Board.SIZE == placed[1] / Board.SIZE;
+        int step = horizontal ? 1 : Board.SIZE;
+        int crossStep = horizontal ? Board.SIZE : 1;
+
+        int start = runStart(placed[0], step);
+        int length = runLength(start, step);
+        if (length > 1 || (length == 1 && board.isEmpty())) {
+            addWord(start, step, length);
+        }
+        for (int i = 0; i < placedCount; i++) {
+            start = runStart(placed[i], crossStep);
+            length = runLength(start, crossStep);
+            if (length > 1) {
+                addWord(start, crossStep, length);
+            }
+        }
+    }
+
+    private void addWord(int start, int step, int length) {
+        wordStart[wordCount] = start;
+        wordStep[wordCount] = step;
+        wordLength[wordCount] = length;
+        wordCount++;
+    }
+
+    /**
+     * Первая занятая клетка непрерывного ряда, содержащего {@code cell}, вдоль направления.
+     */
+    private int runStart(int cell, int step) {
+        while (hasPrevious(cell, step) && occupied(cell - step)) {
+            cell -= step;
+        }
+        return cell;
+    }
+
+    private int runLength(int start, int step) {
+        int length = 0;
+        int cell = start;
+        while (occupied(cell)) {
+            length++;
+            if (!hasNext(cell, step)) break;
+            cell += step;
+        }
+        return length;
+    }
+
+    private static boolean hasPrevious(int cell, int step) {
+        return step == 1 ? cell % Board.SIZE > 0 : cell >= Board.SIZE;
+    }
+
+    private static boolean hasNext(int cell, int step) {
+        return step == 1 ? cell % Board.SIZE < Board.SIZE - 1 : cell < Board.CELL_COUNT - Board.SIZE;
+    }
+
+    private boolean occupied(int cell) {
+        return overlay[cell] != 0 || board.codeAt(cell) != 0;
+    }
+
+    /**
+     * @return true, если геометрия выкладки допустима (после {@code scan}).
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    public int wordCount() {
+        return wordCount;
+    }
+
+    public int wordLength(int word) {
+        return wordLength[word];
+    }
+
+    /**
+     * Номер клетки доски ({@link Board#index}) для позиции {@code i} слова.
+     */
+    public int cell(int word, int i) {
+        return wordStart[word] + i * wordStep[word];
+    }
+
+    /**
+     * Фишка в клетке: новая, если она выложена этим ходом, иначе с доски.
+     */
+    public Tile tileAt(int cell) {
+        int code = overlay[cell];
+        return TILES[(code != 0 ? code : board.codeAt(cell)) - 1];
+    }
+
+    public boolean isNew(int cell) {
+        return (newMask[cell >>> 6] & 1L << cell) != 0;
+    }
+
+    public int placedCount() {
+        return placedCount;
+    }
+
+    /**
+     * Буквы слова в общем для экземпляра буфере; действительны до следующего вызова.
+     */
+    public char[] letters(int word) {
+        for (int i = 0; i < wordLength[word]; i++) {
+            letters[i] = tileAt(cell(word, i)).getLetter();
+        }
+        return letters;
+    }
+
+    /**
+     * Слова в прежнем виде — списками фишек (для старого API); выделяет память.
+     */
+    public List<List<TilePlacementDTO>> toWordLists() {
+        List<List<TilePlacementDTO>> words = new ArrayList<>(wordCount);
+        for (int w = 0; w < wordCount; w++) {
+            List<TilePlacementDTO> word = new ArrayList<>(wordLength[w]);
+            for (int i = 0; i < wordLength[w]; i++) {
+                int cell = cell(w, i);
+                word.add(new TilePlacementDTO(tileAt(cell), cell % Board.SIZE, cell / Board.SIZE));
+            }
+            words.add(word);
+        }
+        return words;
+    }
+
+    private void reset() {
+        for (int i = 0; i < placedCount; i++) {
+            int cell = placed[i];
+            overlay[cell] = 0;
+            newMask[cell >>> 6] = 0;
+        }
+        placedCount = 0;
+        wordCount = 0;
+        valid = false;
+    }
+
+    /**
+     * Возвращает экземпляр в пул.
+     */
+    @Override
+    public void close() {
+        reset();
+        board = null;
+        POOL.offer(this);
+    }
+}
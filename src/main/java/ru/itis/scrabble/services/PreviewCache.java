@@ -0,0 +1,87 @@
+package ru.itis.scrabble.services;
+
+import ru.itis.scrabble.dto.TilePlacementDTO;
+import ru.itis.scrabble.models.Board;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Кэш результатов проверки предпросмотра одной комнаты.
+ * <p>
+ * Игроки часто двигают одни и те же фишки туда-обратно, и одинаковый набор фишек
+ * на неизменной доске проверяется заново. Ключ — версия состояния игры и набор фишек
+ * без учета порядка; при смене версии (ход изменил доску) кэш очищается целиком.
+ * Наборы больше {@link #MAX_PLACEMENTS} фишек или с координатами вне доски не кэшируются.
+ * </p>
+ */
+public class PreviewCache {
+    // Фишек на стойке 7, с запасом помещается 8: по 4 фишки в каждом long ключа
+    static final int MAX_PLACEMENTS = 8;
+    private static final int CAPACITY = Integer.getInteger("scrabble.preview.cacheSize", 128);
+
+    public enum Verdict { OK, INVALID_GEOMETRY, UNKNOWN_WORD }
+
+    /**
+     * Точный (без коллизий) ключ: каждая фишка — 13 бит (номер клетки и фишки), отсортированы.
+     */
+    public record Key(long version, long low, long high) {
+    }
+
+    private final Map<Key, Verdict> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Verdict> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+    private long version = -1;
+
+    /**
+     * @return ключ набора фишек для версии доски или null, если набор не кэшируется.
+     */
+    public static Key keyOf(long version, List<TilePlacementDTO> placements) {
+        int count = placements.size();
+        if (count == 0 || count > MAX_PLACEMENTS) return null;
+        long[] codes = new long[count];
+        for (int i = 0; i < count; i++) {
+            TilePlacementDTO p = placements.get(i);
+            if (p.tile() == null || p.x() < 0 || p.x() >= Board.SIZE || p.y() < 0 || p.y() >= Board.SIZE) return null;
+            // +1, чтобы код любой фишки был ненулевым и наборы разной длины не совпадали
+            codes[i] = ((long) (p.y() * Board.SIZE + p.x()) << 5 | p.tile().ordinal()) + 1;
+        }
+        Arrays.sort(codes);
+        long low = 0;
+        long high = 0;
+        for (int i = 0; i < count; i++) {
+            if (i < 4) low |= codes[i] << (13 * i);
+            else high |= codes[i] << (13 * (i - 4));
+        }
+        return new Key(version, low, high);
+    }
+
+    public synchronized Verdict get(Key key) {
+        sync(key.version());
+        return entries.get(key);
+    }
+
+    public synchronized void put(Key key, Verdict verdict) {
+        sync(key.version());
+        entries.put(key, verdict);
+    }
+
+    /**
+     * Сбрасывает кэш; вызывается, когда ход изменил доску.
+     */
+    public synchronized void invalidate() {
+        entries.clear();
+    }
+
+    private void sync(long version) {
+        if (this.version != version) {
+            entries.clear();
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ru.itis.scrabble.services;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Актор игровой комнаты: почтовый ящик задач, которые выполняются строго по одной
+ * и в порядке поступления. Собственного потока у комнаты нет — ящик разбирается
+ * задачей на общем исполнителе (виртуальные потоки), поэтому тысячи комнат
+ * не требуют тысяч потоков ОС.
+ */
+public class RoomActor {
+    // Сколько задач разбирается за один заход, прежде чем уступить исполнитель другим комнатам
+    private static final int DRAIN_BATCH = 32;
+
+    private final int roomId;
+    private final Executor executor;
+    private final Queue<Envelope> mailbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private volatile boolean closed;
+
+    // Метрики
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong totalQueueNanos = new AtomicLong();
+    private final AtomicLong maxQueueNanos = new AtomicLong();
+
+    public RoomActor(int roomId, Executor executor) {
+        this.roomId = roomId;
+        this.executor = executor;
+    }
+
+    /**
+     * Ставит задачу в почтовый ящик комнаты.
+     * @return false, если комната уже закрыта и задача не будет выполнена.
+     */
+    public boolean submit(Runnable task) {
+        if (closed) return false;
+
+        mailbox.add(new Envelope(task, System.nanoTime()));
+        int current = depth.incrementAndGet();
+        maxDepth.accumulateAndGet(current, Math::max);
+        schedule();
+        return true;
+    }
+
+    /**
+     * Закрывает комнату: новые задачи не принимаются, уже поставленные будут выполнены.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            for (int i = 0; i < DRAIN_BATCH; i++) {
+                Envelope envelope = mailbox.poll();
+                if (envelope == null) break;
+                depth.decrementAndGet();
+
+                long waited = System.nanoTime() - envelope.enqueuedAt();
+                totalQueueNanos.addAndGet(waited);
+                maxQueueNanos.accumulateAndGet(waited, Math::max);
+
+                try {
+                    envelope.task().run();
+                } catch (Exception e) {
+                    System.err.println("Ошибка в задаче комнаты " + roomId + ": " + e.getMessage());
+                } finally {
+                    processed.incrementAndGet();
+                }
+            }
+        } finally {
+            scheduled.set(false);
+            // Задача могла прийти после последнего poll(): перезапускаем разбор
+            if (!mailbox.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    public Metrics getMetrics() {
+        long count = processed.get();
+        return new Metrics(roomId, depth.get(), maxDepth.get(), count,
+                count == 0 ? 0 : totalQueueNanos.get() / count / 1_000,
+                maxQueueNanos.get() / 1_000);
+    }
+
+    /**
+     * Снимок метрик комнаты: глубина почтового ящика и время ожидания задач в очереди.
+     */
+    public record Metrics(int roomId, int mailboxDepth, int maxMailboxDepth, long processed,
+                          long avgQueueLatencyMicros, long maxQueueLatencyMicros) {
+    }
+
+    private record Envelope(Runnable task, long enqueuedAt) {
+    }
+}
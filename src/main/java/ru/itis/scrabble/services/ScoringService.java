@@ -6,6 +6,16 @@ import ru.itis.scrabble.models.Board;
 import java.util.List;
 
 public interface ScoringService {
+    // Бонус за ход, в котором выложены все фишки стойки (bingo)
+    int BINGO_BONUS = 50;
+    int RACK_SIZE = 7;
 
     int countScore(List<TilePlacementDTO> newPlacements, List<List<TilePlacementDTO>> allWords, Board board);
+
+    // Очки за слова, найденные PlacementScan, включая бонус за bingo; без выделения памяти
+    int countScore(PlacementScan scan);
+
+    static int bingoBonus(int placedCount) {
+        return placedCount == RACK_SIZE ? BINGO_BONUS : 0;
+    }
 }
@@ -2,61 +2,64 @@ package ru.itis.scrabble.services;
 
 import ru.itis.scrabble.dto.TilePlacementDTO;
 import ru.itis.scrabble.models.Board;
-import ru.itis.scrabble.models.BoardCell;
-import ru.itis.scrabble.models.CellType;
-import ru.itis.scrabble.models.Tile;
-import ru.itis.scrabble.services.ScoringService;
 
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 
+/**
+ * Подсчет очков хода. Бонусы клеток берутся из статических таблиц множителей
+ * {@link Board#letterMultiplier} и {@link Board#wordMultiplier} и применяются только
+ * к фишкам, выложенным этим ходом. За ход всеми семью фишками добавляется
+ * {@link ScoringService#BINGO_BONUS}.
+ */
 public class ScoringServiceImpl implements ScoringService {
 
     @Override
-    public int countScore(List<TilePlacementDTO> newPlacements, List<List<TilePlacementDTO>> allWords, Board board) {
-        int totalTurnScore = 0;
-
-        // Создаем сет координат новых фишек для быстрой проверки бонусов
-        Set<String> newPositions = newPlacements.stream()
-                .map(p -> p.x() + "," + p.y())
-                .collect(Collectors.toSet());
-
-        for (List<TilePlacementDTO> word : allWords) {
-            totalTurnScore += calculateWordScore(word, newPositions, board);
+    public int countScore(PlacementScan scan) {
+        int total = 0;
+        for (int w = 0; w < scan.wordCount(); w++) {
+            int wordPoints = 0;
+            int wordMultiplier = 1;
+            for (int i = 0; i < scan.wordLength(w); i++) {
+                int cell = scan.cell(w, i);
+                int letterPoints = scan.tileAt(cell).getPoints();
+                // Маска новых клеток: бонусы действуют только под фишками этого хода
+                if (scan.isNew(cell)) {
+                    letterPoints *= Board.letterMultiplier(cell);
+                    wordMultiplier *= Board.wordMultiplier(cell);
+                }
+                wordPoints += letterPoints;
+            }
+            total += wordPoints * wordMultiplier;
         }
-
-        return totalTurnScore;
+        return total + ScoringService.bingoBonus(scan.placedCount());
     }
 
-    private int calculateWordScore(List<TilePlacementDTO> word, Set<String> newPositions, Board board) {
-        int wordMultiplier = 1;
-        int wordPoints = 0;
-
-        for (TilePlacementDTO placement : word) {
-            int x = placement.x();
-            int y = placement.y();
-            Tile tile = placement.tile();
-            BoardCell cell = board.getBoardCells()[y][x];
-
-            int letterPoints = tile.getPoints();
-
-            // Проверяем, является ли фишка новой в этом ходу
-            if (newPositions.contains(x + "," + y)) {
-                CellType type = cell.getCellType();
-
-                switch (type) {
-                    case DLS -> letterPoints *= 2;
-                    case TLS -> letterPoints *= 3;
-                    case DWS -> wordMultiplier *= 2;
-                    case TWS -> wordMultiplier *= 3;
-                    case NONE -> {}
+    @Override
+    public int countScore(List<TilePlacementDTO> newPlacements, List<List<TilePlacementDTO>> allWords, Board board) {
+        int total = 0;
+        for (List<TilePlacementDTO> word : allWords) {
+            int wordPoints = 0;
+            int wordMultiplier = 1;
+            for (TilePlacementDTO placement : word) {
+                int letterPoints = placement.tile().getPoints();
+                if (isNew(placement, newPlacements)) {
+                    int cell = Board.index(placement.x(), placement.y());
+                    letterPoints *= Board.letterMultiplier(cell);
+                    wordMultiplier *= Board.wordMultiplier(cell);
                 }
+                wordPoints += letterPoints;
             }
-
-            wordPoints += letterPoints;
+            total += wordPoints * wordMultiplier;
         }
+        return total + ScoringService.bingoBonus(newPlacements.size());
+    }
 
-        return wordPoints * wordMultiplier;
+    // Фишек хода не больше семи: линейный поиск дешевле любого множества
+    private static boolean isNew(TilePlacementDTO placement, List<TilePlacementDTO> newPlacements) {
+        for (int i = 0; i < newPlacements.size(); i++) {
+            TilePlacementDTO p = newPlacements.get(i);
+            if (p.x() == placement.x() && p.y() == placement.y()) return true;
+        }
+        return false;
     }
-}
\ No newline at end of file
+}
@@ -6,4 +6,7 @@ import java.util.List;
 
 public interface WordService {
     boolean checkWords(List<List<TilePlacementDTO>> allWords);
+
+    // Проверка слов, найденных PlacementScan, без создания строк и списков
+    boolean checkWords(PlacementScan scan);
 }
@@ -1,29 +1,54 @@
 package ru.itis.scrabble.services;
 
 import ru.itis.scrabble.dto.TilePlacementDTO;
+import ru.itis.scrabble.models.Board;
 import ru.itis.scrabble.util.DictUtil;
+import ru.itis.scrabble.util.Dictionary;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class WordServiceImpl implements WordService {
 
+    private final Dictionary dictionary;
+
+    public WordServiceImpl() {
+        this(DictUtil.getDictionary());
+    }
+
+    public WordServiceImpl(Dictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
     @Override
     public boolean checkWords(List<List<TilePlacementDTO>> allWords) {
         if (allWords == null || allWords.isEmpty()) {
             return false;
         }
 
-        List<String> wordsAsString = allWords.stream()
-                .map(this::convertToString)
-                .collect(Collectors.toList());
-
-        return DictUtil.areAllWordsValid(wordsAsString);
+        // Слово не длиннее стороны доски, буквы копируются в буфер без создания строк
+        char[] letters = new char[Board.SIZE];
+        for (List<TilePlacementDTO> word : allWords) {
+            int len = 0;
+            for (TilePlacementDTO p : word) {
+                letters[len++] = p.tile().getLetter();
+            }
+            if (!dictionary.contains(letters, 0, len)) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    private String convertToString(List<TilePlacementDTO> word) {
-        return word.stream()
-                .map(p -> String.valueOf(p.tile().getLetter()))
-                .collect(Collectors.joining());
+    @Override
+    public boolean checkWords(PlacementScan scan) {
+        if (scan.wordCount() == 0) {
+            return false;
+        }
+        for (int w = 0; w < scan.wordCount(); w++) {
+            if (!dictionary.contains(scan.letters(w), 0, scan.wordLength(w))) {
+                return false;
+            }
+        }
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,161 @@
+package ru.itis.scrabble.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static ru.itis.scrabble.util.DawgDictionary.END_OF_WORD;
+import static ru.itis.scrabble.util.DawgDictionary.LAST_EDGE;
+import static ru.itis.scrabble.util.DawgDictionary.ROOT;
+import static ru.itis.scrabble.util.DawgDictionary.TARGET_SHIFT;
+
+/**
+ * Инкрементальное построение минимального DAWG по отсортированным последовательностям
+ * символов (алгоритм Дацюка): после каждой последовательности уже законченные ветви
+ * заменяются эквивалентными вершинами из реестра.
+ * <p>
+ * Символы — числа от 0 до 31; результат упаковывается в массив ребер
+ * в формате, описанном в {@link DawgDictionary}.
+ * </p>
+ */
+final class DawgBuilder {
+    private final BuildNode root = new BuildNode();
+    private final Map<BuildNode, BuildNode> registry = new HashMap<>();
+    // Путь последней добавленной последовательности, еще не прошедший минимизацию
+    private final List<BuildNode> unchecked = new ArrayList<>();
+    private byte[] previous = new byte[0];
+    private int sequenceCount;
+
+    /**
+     * Добавляет последовательность {@code symbols[0 .. len)}. Последовательности должны
+     * поступать по возрастанию; повтор предыдущей игнорируется.
+     */
+    void add(byte[] symbols, int len) {
+        int cmp = Arrays.compare(symbols, 0, len, previous, 0, previous.length);
+        if (cmp <= 0) {
+            if (cmp == 0) return;
+            throw new IllegalArgumentException("Последовательности должны быть отсортированы");
+        }
+
+        int common = Arrays.mismatch(symbols, 0, len, previous, 0, previous.length);
+        if (common < 0) common = len;
+
+        minimize(common);
+
+        BuildNode node = unchecked.isEmpty() ? root : unchecked.get(unchecked.size() - 1);
+        for (int i = common; i < len; i++) {
+            BuildNode next = new BuildNode();
+            node.addEdge(symbols[i], next);
+            unchecked.add(next);
+            node = next;
+        }
+        node.terminal = true;
+
+        previous = Arrays.copyOf(symbols, len);
+        sequenceCount++;
+    }
+
+    int getSequenceCount() {
+        return sequenceCount;
+    }
+
+    /**
+     * Завершает минимизацию и упаковывает граф.
+     * @return массив ребер; ребра корня начинаются с индекса {@link DawgDictionary#ROOT}.
+     */
+    int[] finish() {
+        minimize(0);
+        return flatten();
+    }
+
+    private void minimize(int downTo) {
+        for (int i = unchecked.size() - 1; i >= downTo; i--) {
+            BuildNode child = unchecked.remove(i);
+            BuildNode parent = i == 0 ? root : unchecked.get(i - 1);
+            BuildNode existing = registry.putIfAbsent(child, child);
+            if (existing != null) {
+                parent.targets[parent.count - 1] = existing;
+            }
+        }
+    }
+
+    private int[] flatten() {
+        Map<BuildNode, Integer> offsets = new IdentityHashMap<>();
+        List<BuildNode> order = new ArrayList<>();
+
+        // Раскладываем вершины в порядке обхода, начиная с корня
+        int size = ROOT;
+        order.add(root);
+        offsets.put(root, size);
+        size += root.count;
+        for (int n = 0; n < order.size(); n++) {
+            BuildNode node = order.get(n);
+            for (int i = 0; i < node.count; i++) {
+                BuildNode target = node.targets[i];
+                if (target.count > 0 && !offsets.containsKey(target)) {
+                    offsets.put(target, size);
+                    size += target.count;
+                    order.add(target);
+                }
+            }
+        }
+
+        int[] edges = new int[size];
+        for (BuildNode node : order) {
+            int base = offsets.get(node);
+            for (int i = 0; i < node.count; i++) {
+                BuildNode target = node.targets[i];
+                int edge = node.labels[i];
+                if (target.terminal) edge |= END_OF_WORD;
+                if (i == node.count - 1) edge |= LAST_EDGE;
+                if (target.count > 0) edge |= offsets.get(target) << TARGET_SHIFT;
+                edges[base + i] = edge;
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Вершина графа на этапе построения. После регистрации не изменяется.
+     */
+    private static final class BuildNode {
+        byte[] labels = new byte[2];
+        BuildNode[] targets = new BuildNode[2];
+        int count;
+        boolean terminal;
+
+        void addEdge(int symbol, BuildNode target) {
+            if (count == labels.length) {
+                labels = Arrays.copyOf(labels, count * 2);
+                targets = Arrays.copyOf(targets, count * 2);
+            }
+            labels[count] = (byte) symbol;
+            targets[count] = target;
+            count++;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof BuildNode other)) return false;
+            if (terminal != other.terminal || count != other.count) return false;
+            for (int i = 0; i < count; i++) {
+                if (labels[i] != other.labels[i] || targets[i] != other.targets[i]) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = terminal ? 1 : 0;
+            for (int i = 0; i < count; i++) {
+                h = 31 * h + labels[i];
+                h = 31 * h + System.identityHashCode(targets[i]);
+            }
+            return h;
+        }
+    }
+}
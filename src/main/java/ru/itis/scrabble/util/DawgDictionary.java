@@ -0,0 +1,237 @@
+package ru.itis.scrabble.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Словарь на основе минимизированного DAWG (направленного ациклического графа слов).
+ * <p>
+ * Граф хранится в одном массиве {@code int}: исходящие ребра каждой вершины
+ * лежат подряд, последнее ребро вершины помечено флагом. Общие префиксы и суффиксы
+ * слов хранятся один раз, поэтому весь словарь занимает порядка мегабайта.
+ * </p>
+ * <p>
+ * Массив ребер можно сохранить в бинарный образ ({@link #writeImage(Path)}) на этапе сборки
+ * и затем отобразить в память ({@link #mapImage(Path)}) без разбора списка слов.
+ * Отображение только для чтения, поэтому несколько процессов на одной машине
+ * используют одну копию образа в page cache.
+ * </p>
+ *
+ * <br>
+ * <b>Формат ребра:</b>
+ * <ul>
+ *     <li>биты 0-4 - номер буквы (0 = 'A')</li>
+ *     <li>бит 5 - слово, оканчивающееся этой буквой, есть в словаре</li>
+ *     <li>бит 6 - последнее ребро вершины</li>
+ *     <li>биты 7-31 - индекс первого ребра целевой вершины (0 - у вершины нет ребер)</li>
+ * </ul>
+ */
+public class DawgDictionary implements Dictionary {
+    public static final int ALPHABET_SIZE = 26;
+
+    static final int LETTER_MASK = 0x1F;
+    static final int END_OF_WORD = 1 << 5;
+    static final int LAST_EDGE = 1 << 6;
+    static final int TARGET_SHIFT = 7;
+
+    // Ребра корня начинаются с индекса 1: индекс 0 обозначает отсутствие ребер
+    static final int ROOT = 1;
+
+    // Заголовок образа (см. EdgeImage): магическое число и версия формата
+    private static final int IMAGE_MAGIC = 0x44415747; // "DAWG"
+    private static final int IMAGE_VERSION = 1;
+
+    private final IntBuffer edges;
+    private final int wordCount;
+
+    DawgDictionary(IntBuffer edges, int wordCount) {
+        this.edges = edges;
+        this.wordCount = wordCount;
+    }
+
+    /**
+     * Отображает в память бинарный образ словаря, созданный {@link #writeImage(Path)}.
+     */
+    public static DawgDictionary mapImage(Path image) throws IOException {
+        return fromImage(EdgeImage.map(image, IMAGE_MAGIC, IMAGE_VERSION));
+    }
+
+    /**
+     * Читает образ словаря из потока в память кучи (например, из ресурса внутри jar).
+     */
+    public static DawgDictionary readImage(InputStream is) throws IOException {
+        return fromImage(EdgeImage.read(is, IMAGE_MAGIC, IMAGE_VERSION));
+    }
+
+    private static DawgDictionary fromImage(EdgeImage image) {
+        return new DawgDictionary(image.edges(), image.wordCount());
+    }
+
+    /**
+     * Сохраняет словарь в бинарный образ: заголовок и массив ребер в порядке little-endian.
+     */
+    public void writeImage(Path image) throws IOException {
+        EdgeImage.write(image, IMAGE_MAGIC, IMAGE_VERSION, wordCount, edges);
+    }
+
+    /**
+     * Строит словарь из текстового списка слов (по одному слову в строке,
+     * допускаются кавычки вокруг слова).
+     */
+    public static DawgDictionary fromWordList(InputStream is) throws IOException {
+        List<String> words = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String word = normalize(line);
+                if (word != null) {
+                    words.add(word);
+                }
+            }
+        }
+        Collections.sort(words);
+        return build(words);
+    }
+
+    /**
+     * Строит словарь из списка слов, отсортированного по возрастанию.
+     */
+    public static DawgDictionary build(List<String> sortedWords) {
+        DawgBuilder builder = new DawgBuilder();
+        byte[] letters = new byte[0];
+        for (String word : sortedWords) {
+            if (letters.length < word.length()) letters = new byte[word.length()];
+            for (int i = 0; i < word.length(); i++) {
+                letters[i] = (byte) letterIndex(word.charAt(i));
+            }
+            builder.add(letters, word.length());
+        }
+        return new DawgDictionary(IntBuffer.wrap(builder.finish()), builder.getSequenceCount());
+    }
+
+    /**
+     * Приводит строку списка слов к верхнему регистру и убирает кавычки.
+     * @return слово или {@code null}, если строка пуста или содержит не латинские буквы.
+     */
+    static String normalize(String line) {
+        String word = line.trim();
+        if (word.length() >= 2 && word.charAt(0) == '"' && word.charAt(word.length() - 1) == '"') {
+            word = word.substring(1, word.length() - 1);
+        }
+        if (word.isEmpty()) return null;
+
+        word = word.toUpperCase();
+        for (int i = 0; i < word.length(); i++) {
+            if (letterIndex(word.charAt(i)) < 0) return null;
+        }
+        return word;
+    }
+
+    /**
+     * Номер латинской буквы без учета регистра или -1.
+     */
+    static int letterIndex(char c) {
+        int letter = (c | 0x20) - 'a';
+        return letter >= 0 && letter < ALPHABET_SIZE ? letter : -1;
+    }
+
+    @Override
+    public boolean contains(char[] word, int off, int len) {
+        if (len <= 0) return false;
+
+        int node = ROOT;
+        int edge = 0;
+        for (int i = off; i < off + len; i++) {
+            if (node == 0) return false;
+            edge = findEdge(node, letterIndex(word[i]));
+            if (edge == 0) return false;
+            node = edge >>> TARGET_SHIFT;
+        }
+        return (edge & END_OF_WORD) != 0;
+    }
+
+    @Override
+    public boolean hasPrefix(char[] prefix, int off, int len) {
+        int node = ROOT;
+        for (int i = off; i < off + len; i++) {
+            if (node == 0) return false;
+            int edge = findEdge(node, letterIndex(prefix[i]));
+            if (edge == 0) return false;
+            node = edge >>> TARGET_SHIFT;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(CharSequence word) {
+        if (word == null || word.isEmpty()) return false;
+
+        int node = ROOT;
+        int edge = 0;
+        for (int i = 0; i < word.length(); i++) {
+            if (node == 0) return false;
+            edge = findEdge(node, letterIndex(word.charAt(i)));
+            if (edge == 0) return false;
+            node = edge >>> TARGET_SHIFT;
+        }
+        return (edge & END_OF_WORD) != 0;
+    }
+
+    @Override
+    public void forEachWord(Consumer<String> action) {
+        if (edges.limit() > ROOT) {
+            forEachWord(ROOT, new char[32], 0, action);
+        }
+    }
+
+    private void forEachWord(int node, char[] prefix, int len, Consumer<String> action) {
+        if (len == prefix.length) prefix = Arrays.copyOf(prefix, len * 2);
+        for (int i = node; ; i++) {
+            int edge = edges.get(i);
+            prefix[len] = (char) ('A' + (edge & LETTER_MASK));
+            if ((edge & END_OF_WORD) != 0) {
+                action.accept(new String(prefix, 0, len + 1));
+            }
+            int target = edge >>> TARGET_SHIFT;
+            if (target != 0) {
+                forEachWord(target, prefix, len + 1, action);
+            }
+            if ((edge & LAST_EDGE) != 0) return;
+        }
+    }
+
+    @Override
+    public int size() {
+        return wordCount;
+    }
+
+    /**
+     * @return размер графа в ребрах (для оценки занимаемой памяти).
+     */
+    public int edgeCount() {
+        return edges.limit() - 1;
+    }
+
+    /**
+     * Ищет среди ребер вершины ребро с нужной буквой.
+     * @return само ребро или 0, если его нет.
+     */
+    private int findEdge(int node, int letter) {
+        if (letter < 0 || node >= edges.limit()) return 0;
+        for (int i = node; ; i++) {
+            int edge = edges.get(i);
+            if ((edge & LETTER_MASK) == letter) return edge;
+            if ((edge & LAST_EDGE) != 0) return 0;
+        }
+    }
+}
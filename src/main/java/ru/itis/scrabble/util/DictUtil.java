@@ -1,44 +1,111 @@
 package ru.itis.scrabble.util;
 
-import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
-import java.util.HashSet;
-import java.util.Set;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.List;
 
 /**
  * Утилитарный класс для лингвистической проверки слов.
+ * Хранит общий для сервера {@link Dictionary}.
  */
 public class DictUtil {
-    private static final Set<String> dictionary = new HashSet<>();
-    private static final String WORDS_FILE = "src/main/resources/wordlist-20210729.txt";
-
-    static {
-        loadDictionary();
-    }
+    private static final String WORDS_FILE = "/wordlist-20210729.txt";
+    // Бинарный образ DAWG, собранный DictionaryCompiler на этапе сборки
+    private static final String IMAGE_FILE = "/dictionary.dawg";
+    // Явный путь к образу, общему для нескольких серверных процессов на одной машине
+    private static final String IMAGE_PROPERTY = "scrabble.dictionary.image";
+    // Образ GADDAG для генерации ходов ботов, собранный там же
+    private static final String GADDAG_IMAGE_FILE = "/dictionary.gaddag";
+    private static final String GADDAG_IMAGE_PROPERTY = "scrabble.gaddag.image";
+    private static final Dictionary dictionary = loadDictionary();
 
     /**
-     * Загружает слова из файла ресурсов в HashSet при старте приложения.
+     * Загружает словарь при первом обращении к классу. Порядок поиска:
+     * образ по пути из {@code -Dscrabble.dictionary.image}, образ среди ресурсов
+     * (отображается в память, если лежит в файловой системе), затем текстовый список слов.
      */
-    private static void loadDictionary() {
+    private static Dictionary loadDictionary() {
+        try {
+            URL image = findImage(IMAGE_PROPERTY, IMAGE_FILE);
+            if (image != null) {
+                if ("file".equals(image.getProtocol())) {
+                    return logLoaded(DawgDictionary.mapImage(Path.of(image.toURI())), "образ " + image);
+                }
+                try (InputStream is = image.openStream()) {
+                    return logLoaded(DawgDictionary.readImage(is), "образ " + image);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Не удалось открыть образ словаря, используется список слов: " + e.getMessage());
+        }
+
         try (InputStream is = DictUtil.class.getResourceAsStream(WORDS_FILE)) {
             if (is == null) {
                 System.err.println("Файл словаря не найден: " + WORDS_FILE);
-                return;
+                return DawgDictionary.build(List.of());
             }
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-                String word;
-                while ((word = reader.readLine()) != null) {
-                    word = word.trim().toUpperCase();
-                    if (!word.isEmpty()) {
-                        dictionary.add(word);
-                    }
+            return logLoaded(DawgDictionary.fromWordList(is), "список слов " + WORDS_FILE);
+        } catch (Exception e) {
+            System.err.println("Ошибка при загрузке словаря: " + e.getMessage());
+            return DawgDictionary.build(List.of());
+        }
+    }
+
+    /**
+     * Загружает GADDAG тем же порядком поиска ({@code -Dscrabble.gaddag.image}, затем ресурс);
+     * без образа граф строится из словаря в куче.
+     */
+    private static Gaddag loadGaddag() {
+        try {
+            URL image = findImage(GADDAG_IMAGE_PROPERTY, GADDAG_IMAGE_FILE);
+            if (image != null) {
+                if ("file".equals(image.getProtocol())) {
+                    return logLoaded(Gaddag.mapImage(Path.of(image.toURI())), "образ " + image);
+                }
+                try (InputStream is = image.openStream()) {
+                    return logLoaded(Gaddag.readImage(is), "образ " + image);
                 }
             }
         } catch (Exception e) {
-            System.err.println("Ошибка при загрузке словаря: " + e.getMessage());
+            System.err.println("Не удалось открыть образ GADDAG, граф строится из словаря: " + e.getMessage());
         }
+        return logLoaded(Gaddag.build(dictionary), "построен из словаря");
+    }
+
+    /**
+     * @return образ по пути из системного свойства, иначе ресурс с образом или null.
+     */
+    private static URL findImage(String property, String resource) throws IOException {
+        String path = System.getProperty(property);
+        return path != null ? Path.of(path).toUri().toURL() : DictUtil.class.getResource(resource);
+    }
+
+    private static Gaddag logLoaded(Gaddag gaddag, String source) {
+        System.out.println("GADDAG загружен (" + source + "): " + gaddag.size() + " слов, " + gaddag.edgeCount() + " ребер");
+        return gaddag;
+    }
+
+    private static Dictionary logLoaded(DawgDictionary dawg, String source) {
+        System.out.println("Словарь загружен (" + source + "): " + dawg.size() + " слов, " + dawg.edgeCount() + " ребер");
+        return dawg;
+    }
+
+    public static Dictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * GADDAG для генерации ходов. Нужен только ботам, поэтому загружается
+     * при первом обращении, а не вместе со словарем.
+     */
+    public static Gaddag getGaddag() {
+        return GaddagHolder.GADDAG;
+    }
+
+    private static final class GaddagHolder {
+        private static final Gaddag GADDAG = loadGaddag();
     }
 
     /**
@@ -48,7 +115,7 @@ public class DictUtil {
      */
     public static boolean isWordValid(String word) {
         if (word == null) return false;
-        return dictionary.contains(word.toUpperCase());
+        return dictionary.contains(word);
     }
 
     /**
@@ -62,4 +129,4 @@ public class DictUtil {
         }
         return true;
     }
-}
\ No newline at end of file
+}
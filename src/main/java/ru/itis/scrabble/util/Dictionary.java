@@ -0,0 +1,35 @@
+package ru.itis.scrabble.util;
+
+import java.util.function.Consumer;
+
+/**
+ * Словарь допустимых слов.
+ * <p>
+ * Проверки выполняются над участком массива символов без создания строк,
+ * регистр латинских букв не учитывается.
+ * </p>
+ */
+public interface Dictionary {
+
+    /**
+     * Проверяет, есть ли в словаре слово {@code word[off .. off + len)}.
+     */
+    boolean contains(char[] word, int off, int len);
+
+    /**
+     * Проверяет, начинается ли хотя бы одно слово словаря с {@code prefix[off .. off + len)}.
+     */
+    boolean hasPrefix(char[] prefix, int off, int len);
+
+    boolean contains(CharSequence word);
+
+    /**
+     * Перебирает все слова словаря в верхнем регистре.
+     */
+    void forEachWord(Consumer<String> action);
+
+    /**
+     * @return количество слов в словаре.
+     */
+    int size();
+}
@@ -0,0 +1,41 @@
+package ru.itis.scrabble.util;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Сборочный шаг: компилирует текстовый список слов в бинарный образ DAWG,
+ * который сервер отображает в память при старте, и, если указан третий аргумент,
+ * в образ GADDAG для генерации ходов ботов.
+ * <p>
+ * Запуск: {@code DictionaryCompiler <список слов> <файл образа> [<файл образа GADDAG>]}.
+ * </p>
+ */
+public class DictionaryCompiler {
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2 && args.length != 3) {
+            System.err.println("Использование: DictionaryCompiler <список слов> <файл образа> [<файл образа GADDAG>]");
+            System.exit(1);
+        }
+        Path wordList = Path.of(args[0]);
+        Path image = Path.of(args[1]);
+
+        DawgDictionary dawg;
+        try (InputStream is = Files.newInputStream(wordList)) {
+            dawg = DawgDictionary.fromWordList(is);
+        }
+        dawg.writeImage(image);
+
+        System.out.println("Образ словаря записан: " + image + " (" + dawg.size() + " слов, "
+                + dawg.edgeCount() + " ребер, " + Files.size(image) + " байт)");
+
+        if (args.length == 3) {
+            Path gaddagImage = Path.of(args[2]);
+            Gaddag gaddag = Gaddag.build(dawg);
+            gaddag.writeImage(gaddagImage);
+            System.out.println("Образ GADDAG записан: " + gaddagImage + " (" + gaddag.edgeCount() + " ребер, "
+                    + Files.size(gaddagImage) + " байт)");
+        }
+    }
+}
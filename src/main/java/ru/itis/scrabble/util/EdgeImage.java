@@ -0,0 +1,76 @@
+package ru.itis.scrabble.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Бинарный образ массива ребер графа слов ({@link DawgDictionary}, {@link Gaddag}).
+ * <p>
+ * Заголовок — четыре {@code int}: магическое число графа, версия формата, число слов,
+ * число элементов массива ребер; за ним ребра. Порядок байтов — little-endian.
+ * </p>
+ */
+record EdgeImage(IntBuffer edges, int wordCount) {
+    private static final int HEADER_BYTES = 4 * Integer.BYTES;
+
+    /**
+     * Отображает образ в память только для чтения.
+     */
+    static EdgeImage map(Path image, int magic, int version) throws IOException {
+        try (FileChannel channel = FileChannel.open(image, StandardOpenOption.READ)) {
+            return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), magic, version);
+        }
+    }
+
+    /**
+     * Читает образ из потока в память кучи (например, из ресурса внутри jar).
+     */
+    static EdgeImage read(InputStream is, int magic, int version) throws IOException {
+        return parse(ByteBuffer.wrap(is.readAllBytes()), magic, version);
+    }
+
+    private static EdgeImage parse(ByteBuffer image, int magic, int version) throws IOException {
+        image.order(ByteOrder.LITTLE_ENDIAN);
+        if (image.remaining() < HEADER_BYTES
+                || image.getInt(0) != magic || image.getInt(4) != version) {
+            throw new IOException("Неизвестный формат образа");
+        }
+        int wordCount = image.getInt(8);
+        int size = image.getInt(12);
+        if (image.remaining() != HEADER_BYTES + (long) size * Integer.BYTES) {
+            throw new IOException("Образ поврежден: ожидалось " + size + " ребер");
+        }
+
+        IntBuffer edges = image.position(HEADER_BYTES).slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        return new EdgeImage(edges, wordCount);
+    }
+
+    /**
+     * Сохраняет ребра {@code edges[0 .. limit)} в образ.
+     */
+    static void write(Path image, int magic, int version, int wordCount, IntBuffer edges) throws IOException {
+        int size = edges.limit();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + size * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(magic).putInt(version).putInt(wordCount).putInt(size);
+        for (int i = 0; i < size; i++) {
+            buffer.putInt(edges.get(i));
+        }
+        buffer.flip();
+
+        Path parent = image.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        try (FileChannel channel = FileChannel.open(image, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
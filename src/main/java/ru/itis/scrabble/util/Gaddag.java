@@ -0,0 +1,162 @@
+package ru.itis.scrabble.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * GADDAG — граф слов для генерации ходов (алгоритм Гордона).
+ * <p>
+ * Для каждого слова {@code w} длины {@code n} и каждого {@code i} от 1 до {@code n}
+ * в граф добавляется путь {@code rev(w[0..i)) ◇ w[i..n)}: от буквы-якоря слово
+ * читается влево, а после разделителя {@code ◇} — вправо. Для {@code i = n}
+ * разделитель опускается. Граф минимизирован и упакован в массив ребер
+ * того же формата, что и {@link DawgDictionary}; разделитель имеет номер {@link #SEPARATOR}.
+ * </p>
+ * <p>
+ * Построение перебирает все пути всех слов и занимает десятки мегабайт кучи, поэтому
+ * граф собирается на этапе сборки ({@link DictionaryCompiler}) в образ, который
+ * сервер отображает в память ({@link #mapImage(Path)}), как и образ DAWG.
+ * </p>
+ */
+public final class Gaddag {
+    public static final int SEPARATOR = DawgDictionary.ALPHABET_SIZE;
+    public static final int ROOT = DawgDictionary.ROOT;
+
+    // Заголовок образа (см. EdgeImage): магическое число и версия формата
+    private static final int IMAGE_MAGIC = 0x47444147; // "GDAG"
+    private static final int IMAGE_VERSION = 1;
+
+    private final IntBuffer edges;
+    private final int wordCount;
+
+    private Gaddag(IntBuffer edges, int wordCount) {
+        this.edges = edges;
+        this.wordCount = wordCount;
+    }
+
+    /**
+     * Отображает в память бинарный образ, созданный {@link #writeImage(Path)}.
+     */
+    public static Gaddag mapImage(Path image) throws IOException {
+        return fromImage(EdgeImage.map(image, IMAGE_MAGIC, IMAGE_VERSION));
+    }
+
+    /**
+     * Читает образ из потока в память кучи (например, из ресурса внутри jar).
+     */
+    public static Gaddag readImage(InputStream is) throws IOException {
+        return fromImage(EdgeImage.read(is, IMAGE_MAGIC, IMAGE_VERSION));
+    }
+
+    private static Gaddag fromImage(EdgeImage image) {
+        return new Gaddag(image.edges(), image.wordCount());
+    }
+
+    public void writeImage(Path image) throws IOException {
+        EdgeImage.write(image, IMAGE_MAGIC, IMAGE_VERSION, wordCount, edges);
+    }
+
+    /**
+     * Строит GADDAG по всем словам словаря. Пути добавляются группами по первому
+     * символу, поэтому одновременно в памяти находится только одна группа.
+     */
+    public static Gaddag build(Dictionary dictionary) {
+        List<byte[]> words = new ArrayList<>(dictionary.size());
+        dictionary.forEachWord(word -> {
+            byte[] letters = new byte[word.length()];
+            for (int i = 0; i < letters.length; i++) {
+                letters[i] = (byte) DawgDictionary.letterIndex(word.charAt(i));
+            }
+            words.add(letters);
+        });
+
+        DawgBuilder builder = new DawgBuilder();
+        for (int letter = 0; letter < DawgDictionary.ALPHABET_SIZE; letter++) {
+            List<byte[]> group = new ArrayList<>();
+            for (byte[] word : words) {
+                for (int p = 0; p < word.length; p++) {
+                    if (word[p] == letter) {
+                        group.add(path(word, p));
+                    }
+                }
+            }
+            group.sort(Arrays::compare);
+            for (byte[] path : group) {
+                builder.add(path, path.length);
+            }
+        }
+        return new Gaddag(IntBuffer.wrap(builder.finish()), words.size());
+    }
+
+    /**
+     * Путь {@code rev(word[0..p]) ◇ word[p+1..n)} (без разделителя, если {@code p} — последняя буква).
+     */
+    private static byte[] path(byte[] word, int p) {
+        int n = word.length;
+        byte[] path = new byte[p == n - 1 ? n : n + 1];
+        for (int i = 0; i <= p; i++) {
+            path[i] = word[p - i];
+        }
+        if (p < n - 1) {
+            path[p + 1] = SEPARATOR;
+            System.arraycopy(word, p + 1, path, p + 2, n - p - 1);
+        }
+        return path;
+    }
+
+    /**
+     * Ищет ребро вершины с заданным символом.
+     * @param node индекс первого ребра вершины (0 — у вершины нет ребер).
+     * @return ребро или 0, если его нет.
+     */
+    public int findEdge(int node, int symbol) {
+        if (node == 0 || node >= edges.limit()) return 0;
+        for (int i = node; ; i++) {
+            int edge = edges.get(i);
+            if ((edge & DawgDictionary.LETTER_MASK) == symbol) return edge;
+            if ((edge & DawgDictionary.LAST_EDGE) != 0) return 0;
+        }
+    }
+
+    /**
+     * Ребро по его индексу; ребра вершины лежат подряд начиная с индекса вершины.
+     */
+    public int edgeAt(int index) {
+        return edges.get(index);
+    }
+
+    public int edgeCount() {
+        return edges.limit() - 1;
+    }
+
+    /**
+     * @return число слов словаря, из которого построен граф.
+     */
+    public int size() {
+        return wordCount;
+    }
+
+    public static int symbol(int edge) {
+        return edge & DawgDictionary.LETTER_MASK;
+    }
+
+    public static boolean isTerminal(int edge) {
+        return (edge & DawgDictionary.END_OF_WORD) != 0;
+    }
+
+    public static boolean isLast(int edge) {
+        return (edge & DawgDictionary.LAST_EDGE) != 0;
+    }
+
+    /**
+     * @return вершина, в которую ведет ребро (0 — у нее нет ребер).
+     */
+    public static int target(int edge) {
+        return edge >>> DawgDictionary.TARGET_SHIFT;
+    }
+}
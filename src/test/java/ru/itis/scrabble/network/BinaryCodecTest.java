@@ -0,0 +1,179 @@
+package ru.itis.scrabble.network;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import org.junit.jupiter.api.Test;
+import ru.itis.scrabble.dto.ErrorDTO;
+import ru.itis.scrabble.dto.MessageEnvelopeDTO;
+import ru.itis.scrabble.dto.NetworkMessageDTO;
+import ru.itis.scrabble.dto.PlacementsDTO;
+import ru.itis.scrabble.dto.TextDTO;
+import ru.itis.scrabble.dto.TilePlacementDTO;
+import ru.itis.scrabble.models.Tile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryCodecTest {
+    // Коды событий на проводе: номер в списке + 1. Порядок менять нельзя
+    private static final List<String> EVENTS = List.of(
+            "HEARTBEAT_ACK", "PREVIEW_OK", "PREVIEW_INVALID", "MOVE_ACCEPTED", "MOVE_REJECTED", "AUTH_ERROR");
+    private static final List<MessageType> PLACEMENT_TYPES = List.of(MessageType.TILE_PREVIEW, MessageType.TURN_COMMIT);
+
+    @Test
+    void placementsRoundTripForPreviewAndCommit() throws IOException {
+        List<TilePlacementDTO> placements = new ArrayList<>();
+        for (Tile tile : Tile.values()) {
+            placements.add(new TilePlacementDTO(tile, tile.ordinal() % 15, 14 - tile.ordinal() % 15));
+        }
+        // Многобайтовые varint
+        placements.add(new TilePlacementDTO(Tile.values()[0], 200, 70000));
+
+        for (MessageType type : PLACEMENT_TYPES) {
+            for (List<TilePlacementDTO> expected : List.of(placements, placements.subList(0, 1), List.<TilePlacementDTO>of())) {
+                MessageEnvelopeDTO envelope = MessageEnvelopeDTO.of(type, null, new PlacementsDTO(expected), null);
+                assertTrue(BinaryCodec.canEncode(envelope), type.name());
+
+                for (ByteBuffer frame : List.of(BinaryCodec.encode(envelope),
+                        BinaryCodec.encodePlacements(type, expected),
+                        BinaryCodec.tryEncodeCommand(type, Map.of("placements", expected)))) {
+                    byte[] body = body(frame);
+                    assertTrue(BinaryCodec.isBinary(body, 0, body.length));
+                    assertEquals(type, BinaryCodec.readType(body, 0));
+                    assertEquals(expected, BinaryCodec.readPlacements(body, 0, body.length));
+                }
+            }
+        }
+    }
+
+    @Test
+    void placementsAreReadFromTheMiddleOfABuffer() throws IOException {
+        List<TilePlacementDTO> expected = List.of(new TilePlacementDTO(Tile.valueOf("C"), 7, 7));
+        byte[] body = body(BinaryCodec.encodePlacements(MessageType.TURN_COMMIT, expected));
+        byte[] buffer = new byte[body.length + 10];
+        Arrays.fill(buffer, (byte) 0x7F);
+        System.arraycopy(body, 0, buffer, 5, body.length);
+
+        assertEquals(MessageType.TURN_COMMIT, BinaryCodec.readType(buffer, 5));
+        assertEquals(expected, BinaryCodec.readPlacements(buffer, 5, body.length));
+    }
+
+    @Test
+    void commandsWithoutPayloadRoundTrip() throws IOException {
+        for (MessageType type : List.of(MessageType.HEARTBEAT, MessageType.GET_GAME_STATE)) {
+            byte[] body = body(BinaryCodec.tryEncodeCommand(type, null));
+            assertEquals(type, BinaryCodec.readType(body, 0));
+
+            NetworkMessageDTO message = BinaryCodec.readEvent(body, 0, body.length);
+            assertEquals(type, message.type());
+            assertNull(message.event());
+            assertTrue(message.isStructured());
+        }
+        assertNull(BinaryCodec.tryEncodeCommand(MessageType.AUTH, null));
+        assertNull(BinaryCodec.tryEncodeCommand(MessageType.TURN_COMMIT, Map.of("placements", List.of("C"))));
+    }
+
+    @Test
+    void eventsRoundTripForEveryOtherMessageType() throws IOException {
+        List<String> events = new ArrayList<>(EVENTS);
+        events.add(null);
+        List<String> texts = Arrays.asList(null, "", "Move invalid", "Слова нет в словаре! ✓");
+
+        for (MessageType type : MessageType.values()) {
+            if (PLACEMENT_TYPES.contains(type)) continue;
+            for (String event : events) {
+                for (String text : texts) {
+                    MessageEnvelopeDTO envelope = MessageEnvelopeDTO.fromServer(type, event, text != null ? new TextDTO(text) : null);
+                    assertTrue(BinaryCodec.canEncode(envelope), envelope.toString());
+
+                    byte[] body = body(BinaryCodec.encode(envelope));
+                    assertEquals(event != null ? EVENTS.indexOf(event) + 1 : 0, body[2], "код события " + event);
+
+                    NetworkMessageDTO message = BinaryCodec.readEvent(body, 0, body.length);
+                    assertEquals(type, message.type());
+                    assertEquals(event, message.event());
+                    assertEquals("SERVER", message.senderId());
+                    assertTrue(message.isStructured());
+                    assertEquals(expectedData(event, text), message.data(), envelope.toString());
+                    if (text != null) assertEquals(text, message.text());
+                }
+            }
+        }
+    }
+
+    @Test
+    void messagesOutsideTheLayoutsStayInJson() {
+        assertFalse(BinaryCodec.canEncode(MessageEnvelopeDTO.fromServer(MessageType.GAME_EVENT, "ROOM_CREATED", null)));
+        assertFalse(BinaryCodec.canEncode(MessageEnvelopeDTO.fromServer(MessageType.ERROR, null, new ErrorDTO("NOT_YOUR_TURN", "text"))));
+        assertFalse(BinaryCodec.canEncode(MessageEnvelopeDTO.fromServer(MessageType.SYNC_STATE, null, Map.of("board", "..."))));
+        assertFalse(BinaryCodec.canEncode(MessageEnvelopeDTO.of(MessageType.TURN_COMMIT, null, new TextDTO("C"), null)));
+    }
+
+    @Test
+    void rejectsMalformedFrames() {
+        byte[] placements = body(BinaryCodec.encodePlacements(MessageType.TURN_COMMIT,
+                List.of(new TilePlacementDTO(Tile.valueOf("C"), 7, 7), new TilePlacementDTO(Tile.valueOf("A"), 8, 7))));
+        assertThrows(IOException.class, () -> BinaryCodec.readPlacements(placements, 0, placements.length - 1));
+
+        byte[] unknownTile = placements.clone();
+        unknownTile[3] = (byte) Tile.values().length;
+        assertThrows(IOException.class, () -> BinaryCodec.readPlacements(unknownTile, 0, unknownTile.length));
+
+        byte[] tooMany = {BinaryCodec.MARKER, (byte) MessageType.TURN_COMMIT.ordinal(), (byte) 0xFF, 0x7F};
+        assertThrows(IOException.class, () -> BinaryCodec.readPlacements(tooMany, 0, tooMany.length));
+
+        byte[] unknownType = {BinaryCodec.MARKER, (byte) MessageType.values().length, 0, 0};
+        assertThrows(IOException.class, () -> BinaryCodec.readType(unknownType, 0));
+
+        byte[] event = body(BinaryCodec.encodeEvent(MessageType.GAME_EVENT, "MOVE_REJECTED", "Move invalid"));
+        assertThrows(IOException.class, () -> BinaryCodec.readEvent(event, 0, event.length - 1));
+        byte[] unknownEvent = event.clone();
+        unknownEvent[2] = (byte) (EVENTS.size() + 1);
+        assertThrows(IOException.class, () -> BinaryCodec.readEvent(unknownEvent, 0, unknownEvent.length));
+        assertThrows(IOException.class, () -> BinaryCodec.readEvent(placements, 0, placements.length));
+    }
+
+    @Test
+    void binaryFramesAreSmallerThanJson() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        List<TilePlacementDTO> rack = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            rack.add(new TilePlacementDTO(Tile.values()[i], 4 + i, 7));
+        }
+        for (MessageEnvelopeDTO envelope : List.of(
+                MessageEnvelopeDTO.of(MessageType.TURN_COMMIT, null, new PlacementsDTO(rack), null),
+                MessageEnvelopeDTO.of(MessageType.HEARTBEAT, null, null, null),
+                MessageEnvelopeDTO.fromServer(MessageType.GAME_EVENT, "MOVE_REJECTED", new TextDTO("Move invalid")))) {
+            int json = ProtocolUtils.encode(envelope, mapper).remaining();
+            int binary = BinaryCodec.encode(envelope).remaining();
+            assertTrue(binary * 3 < json, envelope.type() + ": двоичный " + binary + " B, JSON " + json + " B");
+        }
+    }
+
+    private static JsonNode expectedData(String event, String text) {
+        if (text != null) return JsonNodeFactory.instance.objectNode().put("message", text);
+        return event == null ? JsonNodeFactory.instance.objectNode() : null;
+    }
+
+    /**
+     * Тело кадра без 4 байт длины; заодно проверяет, что длина совпадает с телом.
+     */
+    private static byte[] body(ByteBuffer frame) {
+        int length = frame.getInt(frame.position());
+        assertEquals(frame.remaining() - 4, length);
+        byte[] body = new byte[length];
+        frame.duplicate().position(frame.position() + 4).get(body);
+        return body;
+    }
+}
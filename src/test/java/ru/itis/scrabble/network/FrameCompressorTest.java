@@ -0,0 +1,83 @@
+package ru.itis.scrabble.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrameCompressorTest {
+    private static final String STATE = "{\"v\":2,\"type\":\"SYNC_STATE\",\"payload\":{\"board\":{\"boardCells\":[["
+            + "{\"cellType\":\"NONE\",\"tile\":null},".repeat(225) + "]]}}}";
+
+    @Test
+    void pooledFrameIsCompressedIntoThePool() throws IOException {
+        BufferPool pool = new BufferPool();
+        FrameCompressor compressor = new FrameCompressor();
+        byte[] body = STATE.getBytes(StandardCharsets.UTF_8);
+        PooledBuffer frame = pool.copyOf(ProtocolUtils.frame(body));
+        long releasedBefore = pool.stats().released();
+
+        PooledBuffer compressed = compressor.compress(frame, pool);
+
+        ByteBuffer out = compressed.buffer();
+        assertTrue(out.isDirect());
+        int header = out.getInt(out.position());
+        assertTrue((header & ProtocolUtils.FLAG_COMPRESSED) != 0);
+        assertEquals(out.remaining() - 4, header & ProtocolUtils.LENGTH_MASK);
+        assertTrue(out.remaining() < body.length / 4, "сжатый кадр " + out.remaining() + " B");
+        // Исходный кадр возвращен в пул
+        assertEquals(releasedBefore + 1, pool.stats().released());
+        assertThrows(IllegalStateException.class, frame::release);
+
+        // Те же байты, что и у сжатия в кучу
+        ByteBuffer heap = compressor.compress(ProtocolUtils.frame(body));
+        assertEquals(heap, out);
+
+        assertArrayEquals(body, inflate(out));
+        compressed.release();
+    }
+
+    @Test
+    void smallAndIncompressibleFramesAreKept() {
+        BufferPool pool = new BufferPool();
+        FrameCompressor compressor = new FrameCompressor();
+
+        PooledBuffer small = pool.copyOf(ProtocolUtils.frame("{\"type\":\"HEARTBEAT\"}".getBytes(StandardCharsets.UTF_8)));
+        assertSame(small, compressor.compress(small, pool));
+        small.release();
+
+        byte[] noise = new byte[8192];
+        new Random(1).nextBytes(noise);
+        PooledBuffer random = pool.copyOf(ProtocolUtils.frame(noise));
+        assertSame(random, compressor.compress(random, pool));
+        random.release();
+    }
+
+    @Test
+    void closedCompressorSendsFramesUncompressed() {
+        BufferPool pool = new BufferPool();
+        FrameCompressor compressor = new FrameCompressor();
+        compressor.close();
+
+        PooledBuffer frame = pool.copyOf(ProtocolUtils.frame(STATE.getBytes(StandardCharsets.UTF_8)));
+        assertSame(frame, compressor.compress(frame, pool));
+        frame.release();
+    }
+
+    private static byte[] inflate(ByteBuffer frame) throws IOException {
+        byte[] body = new byte[frame.remaining() - 4];
+        frame.duplicate().position(frame.position() + 4).get(body);
+        FrameCompressor reader = new FrameCompressor();
+        int size = reader.inflate(body, 0, body.length, ProtocolUtils.MAX_INFLATED_LENGTH);
+        return Arrays.copyOf(reader.inflated(), size);
+    }
+}
@@ -0,0 +1,65 @@
+package ru.itis.scrabble.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PacketDispatcherTest {
+    private static final int FRAMES = 400;
+
+    @Test
+    void sessionFramesStayInOrderWhenTheSessionJoinsRooms() throws Exception {
+        List<Integer> handled = new ArrayList<>();
+        CountDownLatch allDispatched = new CountDownLatch(1);
+        CountDownLatch allHandled = new CountDownLatch(FRAMES);
+        PacketHandler handler = new PacketHandler(null) {
+            @Override
+            public void handle(ClientSession session, byte[] data, int offset, int length) {
+                int seq = ByteBuffer.wrap(data, offset, length).getInt();
+                // Первый кадр держит свою полосу, пока не будут разосланы все остальные
+                if (seq == 0) await(allDispatched);
+                synchronized (handled) {
+                    handled.add(seq);
+                }
+                allHandled.countDown();
+            }
+        };
+        PacketDispatcher dispatcher = new PacketDispatcher(handler, 4, 512);
+
+        try (SocketChannel channel = SocketChannel.open()) {
+            ClientSession session = new ClientSession(channel, new SelectorLoop(null, new BufferPool()));
+            byte[] frame = new byte[4];
+            for (int seq = 0; seq < FRAMES; seq++) {
+                // Сессия входит в комнаты 0..7 по ходу потока кадров
+                if (seq % 50 == 0) session.setRoomId(seq / 50);
+                ByteBuffer.wrap(frame).putInt(seq);
+                assertTrue(dispatcher.dispatch(session, frame, 0, frame.length));
+            }
+            allDispatched.countDown();
+            assertTrue(allHandled.await(10, TimeUnit.SECONDS));
+        } finally {
+            dispatcher.shutdown();
+        }
+
+        List<Integer> expected = new ArrayList<>();
+        for (int seq = 0; seq < FRAMES; seq++) expected.add(seq);
+        assertEquals(expected, handled);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package ru.itis.scrabble.network;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.itis.scrabble.dto.NetworkMessageDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UiMessageDispatcherTest {
+    private final List<NetworkMessageDTO> delivered = new ArrayList<>();
+    private int starts;
+    private int stops;
+    private UiMessageDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new UiMessageDispatcher(delivered::add, () -> starts++, () -> stops++);
+    }
+
+    @Test
+    void keepsOnlyTheLastSnapshotAndPreviewOfABatch() {
+        NetworkMessageDTO lastState = message(MessageType.SYNC_STATE, "3");
+        NetworkMessageDTO lastPreview = message(MessageType.TILE_PREVIEW, "p2");
+        NetworkMessageDTO lastResult = message(MessageType.GAME_EVENT, "PREVIEW_INVALID|b");
+        NetworkMessageDTO chat = message(MessageType.GAME_EVENT, "CHAT|hi");
+
+        accept(message(MessageType.SYNC_STATE, "1"), message(MessageType.TILE_PREVIEW, "p1"),
+                message(MessageType.GAME_EVENT, "PREVIEW_VALID|a"), message(MessageType.SYNC_STATE, "2"),
+                chat, lastState, lastPreview, lastResult);
+        dispatcher.onPulse();
+
+        assertEquals(List.of(chat, lastState, lastPreview, lastResult), delivered);
+        assertEquals(4, dispatcher.getCollapsedCount());
+    }
+
+    @Test
+    void collapsesStructuredPreviewResultsByEvent() {
+        NetworkMessageDTO first = new NetworkMessageDTO(MessageType.GAME_EVENT, null, null, "PREVIEW_VALID", null);
+        NetworkMessageDTO second = new NetworkMessageDTO(MessageType.GAME_EVENT, null, null, "PREVIEW_INVALID", null);
+
+        accept(first, second);
+        dispatcher.onPulse();
+
+        assertEquals(List.of(second), delivered);
+    }
+
+    @Test
+    void deliversEveryDeltaInOrderAroundSnapshots() {
+        NetworkMessageDTO d1 = message(MessageType.SYNC_DELTA, "1");
+        NetworkMessageDTO d2 = message(MessageType.SYNC_DELTA, "2");
+        NetworkMessageDTO state = message(MessageType.SYNC_STATE, "2");
+        NetworkMessageDTO d3 = message(MessageType.SYNC_DELTA, "3");
+
+        accept(d1, message(MessageType.SYNC_STATE, "1"), d2, state, d3);
+        dispatcher.onPulse();
+
+        assertEquals(List.of(d1, d2, state, d3), delivered);
+    }
+
+    @Test
+    void deliversOneBatchPerPulse() {
+        accept(message(MessageType.SYNC_STATE, "1"));
+        accept(message(MessageType.SYNC_STATE, "2"));
+        assertTrue(delivered.isEmpty());
+
+        dispatcher.onPulse();
+        accept(message(MessageType.SYNC_STATE, "3"));
+        dispatcher.onPulse();
+
+        assertEquals(2, delivered.size());
+        assertEquals("3", delivered.get(1).payload());
+        assertEquals(2, dispatcher.getBatchCount());
+    }
+
+    @Test
+    void requestsPulsesOncePerBurstAndStopsWhenIdle() {
+        for (int i = 0; i < 100; i++) {
+            accept(message(MessageType.SYNC_DELTA, String.valueOf(i)));
+            if (i % 10 == 9) dispatcher.onPulse();
+        }
+        assertEquals(1, starts);
+        assertEquals(0, stops);
+
+        // Пустой пульс останавливает таймер, следующее сообщение запускает его снова
+        dispatcher.onPulse();
+        assertEquals(1, stops);
+        accept(message(MessageType.SYNC_DELTA, "100"));
+        assertEquals(2, starts);
+        dispatcher.onPulse();
+
+        assertEquals(101, delivered.size());
+    }
+
+    private void accept(NetworkMessageDTO... messages) {
+        for (NetworkMessageDTO message : messages) {
+            dispatcher.accept(message);
+        }
+    }
+
+    private static NetworkMessageDTO message(MessageType type, String payload) {
+        return new NetworkMessageDTO(type, payload, null);
+    }
+}
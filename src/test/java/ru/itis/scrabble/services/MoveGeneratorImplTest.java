@@ -0,0 +1,55 @@
+package ru.itis.scrabble.services;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.itis.scrabble.dto.MoveDTO;
+import ru.itis.scrabble.util.DictUtil;
+import ru.itis.scrabble.util.Gaddag;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoveGeneratorImplTest {
+    private static Gaddag gaddag;
+    private static MidGame game;
+
+    @BeforeAll
+    static void playMidGame() {
+        gaddag = Gaddag.build(DictUtil.getDictionary());
+        game = MidGame.play(new MoveGeneratorImpl(gaddag), 8, 2024);
+    }
+
+    @Test
+    void everyMoveIsValidAndScoredLikeScoringService() {
+        BoardService boardService = new BoardServiceImpl();
+        WordService wordService = new WordServiceImpl();
+        ScoringService scoringService = new ScoringServiceImpl();
+
+        List<MoveDTO> moves = new MoveGeneratorImpl(gaddag).generateMoves(game.board(), game.rack());
+        assertFalse(moves.isEmpty());
+        for (MoveDTO move : moves) {
+            try (PlacementScan scan = boardService.scan(move.placements(), game.board(), false)) {
+                assertTrue(scan.isValid(), move::toString);
+                assertTrue(wordService.checkWords(scan), move::toString);
+                assertEquals(scoringService.countScore(scan), move.score(), move::toString);
+            }
+        }
+    }
+
+    @Test
+    void mappedImageGeneratesTheSameMoves(@TempDir Path dir) throws IOException {
+        Path image = dir.resolve("dictionary.gaddag");
+        gaddag.writeImage(image);
+        Gaddag mapped = Gaddag.mapImage(image);
+
+        assertEquals(gaddag.edgeCount(), mapped.edgeCount());
+        assertEquals(new MoveGeneratorImpl(gaddag).generateMoves(game.board(), game.rack()),
+                new MoveGeneratorImpl(mapped).generateMoves(game.board(), game.rack()));
+    }
+}
@@ -0,0 +1,130 @@
+package ru.itis.scrabble.util;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DawgDictionaryTest {
+    private static final String WORDS_FILE = "/wordlist-20210729.txt";
+
+    private static List<String> words;
+    private static DawgDictionary dawg;
+
+    @BeforeAll
+    static void loadWords() throws IOException {
+        words = new ArrayList<>();
+        try (BufferedReader reader = openWordList()) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String word = DawgDictionary.normalize(line);
+                if (word != null) words.add(word);
+            }
+        }
+        try (InputStream is = DawgDictionaryTest.class.getResourceAsStream(WORDS_FILE)) {
+            dawg = DawgDictionary.fromWordList(is);
+        }
+    }
+
+    @Test
+    void containsEveryWordOfTheList() {
+        assertEquals(new HashSet<>(words).size(), dawg.size());
+        for (String word : words) {
+            char[] chars = word.toLowerCase().toCharArray();
+            assertTrue(dawg.contains(chars, 0, chars.length), word);
+            assertTrue(dawg.contains(word), word);
+        }
+    }
+
+    @Test
+    void rejectsWordsOutsideTheList() {
+        Set<String> known = new HashSet<>(words);
+        for (String word : words.subList(0, 5000)) {
+            String longer = word + "Q";
+            assertEquals(known.contains(longer), dawg.contains(longer), longer);
+            String shorter = word.substring(0, word.length() - 1);
+            assertEquals(known.contains(shorter), dawg.contains(shorter), shorter);
+        }
+        assertFalse(dawg.contains(""));
+        assertFalse(dawg.contains("ZZZZZZZZ"));
+    }
+
+    @Test
+    void findsPrefixesOnSubarrays() {
+        char[] text = "xxCATxx".toCharArray();
+        assertTrue(dawg.hasPrefix(text, 2, 2));
+        assertTrue(dawg.contains(text, 2, 3));
+        assertFalse(dawg.hasPrefix("QZX".toCharArray(), 0, 3));
+    }
+
+    @Test
+    void imageRoundTripKeepsEveryWord(@TempDir Path dir) throws IOException {
+        Path image = dir.resolve("dictionary.dawg");
+        dawg.writeImage(image);
+        DawgDictionary mapped = DawgDictionary.mapImage(image);
+
+        assertEquals(dawg.size(), mapped.size());
+        assertEquals(dawg.edgeCount(), mapped.edgeCount());
+        for (String word : words) {
+            assertTrue(mapped.contains(word), word);
+        }
+    }
+
+    /**
+     * Удерживаемая куча DAWG (массив ребер, построенный из списка слов) против прежнего
+     * {@code HashSet<String>} из тех же строк. Ожидаемое соотношение — на порядок; проверяется
+     * с запасом, чтобы погрешность измерения через Runtime не давала ложных падений.
+     */
+    @Test
+    void retainsFarLessHeapThanHashSet() throws IOException {
+        long before = usedHeap();
+        Set<String> hashSet = new HashSet<>();
+        try (BufferedReader reader = openWordList()) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String word = line.trim().toUpperCase();
+                if (!word.isEmpty()) hashSet.add(word);
+            }
+        }
+        long hashSetBytes = usedHeap() - before;
+
+        before = usedHeap();
+        DawgDictionary built;
+        try (InputStream is = DawgDictionaryTest.class.getResourceAsStream(WORDS_FILE)) {
+            built = DawgDictionary.fromWordList(is);
+        }
+        long dawgBytes = usedHeap() - before;
+
+        System.out.printf("HashSet<String>: %d KB, DAWG: %d KB (%d ребер)%n",
+                hashSetBytes / 1024, dawgBytes / 1024, built.edgeCount());
+        assertTrue(hashSet.size() >= built.size());
+        assertTrue(dawgBytes * 4 < hashSetBytes, "DAWG " + dawgBytes + " B, HashSet " + hashSetBytes + " B");
+    }
+
+    private static BufferedReader openWordList() {
+        return new BufferedReader(new InputStreamReader(
+                DawgDictionaryTest.class.getResourceAsStream(WORDS_FILE), StandardCharsets.UTF_8));
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}